@@ -0,0 +1,83 @@
+public class BondLattice implements Lattice {
+    private final int rows;
+    private final int cols;
+    private final int horizontalBonds;
+
+    // bonds of a rows-by-cols square grid of nodes, as the sites of its line graph: two bonds are neighbors when they
+    // share a node, so clusters of open bonds and bond percolation from the top to the bottom row of nodes are exactly
+    // site percolation on this lattice. Horizontal bonds (r, c)-(r, c + 1) come first, indexed r * (cols - 1) + c,
+    // followed by vertical bonds (r, c)-(r + 1, c), indexed r * cols + c
+    public BondLattice(int rows, int cols) {
+        if (rows <= 1) {
+            throw new IllegalArgumentException("rows must be greater than 1, " + rows + " is not valid");
+        }
+        if (cols <= 0) {
+            throw new IllegalArgumentException("cols must be greater than 0, " + cols + " is not valid");
+        }
+        if (2L * rows * cols >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("2 * rows * cols must be less than " + Integer.MAX_VALUE + ", " + rows + " * " + cols + " is not valid");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.horizontalBonds = rows * (cols - 1);
+    }
+
+    public int sites() {
+        return horizontalBonds + (rows - 1) * cols;
+    }
+
+    public int maxNeighbors() {
+        return 6;
+    }
+
+    public int neighbors(int site, int[] neighbors) {
+        int count;
+        if (site < horizontalBonds) {
+            int row = site / (cols - 1);
+            int col = site % (cols - 1);
+            count = addBondsAt(row, col, site, neighbors, 0);
+            count = addBondsAt(row, col + 1, site, neighbors, count);
+        }
+        else {
+            int row = (site - horizontalBonds) / cols;
+            int col = (site - horizontalBonds) % cols;
+            count = addBondsAt(row, col, site, neighbors, 0);
+            count = addBondsAt(row + 1, col, site, neighbors, count);
+        }
+        return count;
+    }
+
+    // adds the bonds at node (row, col), other than bond, to neighbors starting at count; returns the new count
+    private int addBondsAt(int row, int col, int bond, int[] neighbors, int count) {
+        if (col > 0) {
+            count = addBond(row * (cols - 1) + col - 1, bond, neighbors, count);
+        }
+        if (col < cols - 1) {
+            count = addBond(row * (cols - 1) + col, bond, neighbors, count);
+        }
+        if (row > 0) {
+            count = addBond(horizontalBonds + (row - 1) * cols + col, bond, neighbors, count);
+        }
+        if (row < rows - 1) {
+            count = addBond(horizontalBonds + row * cols + col, bond, neighbors, count);
+        }
+        return count;
+    }
+
+    private static int addBond(int neighbor, int bond, int[] neighbors, int count) {
+        if (neighbor != bond) {
+            neighbors[count++] = neighbor;
+        }
+        return count;
+    }
+
+    // a bond is connected to the top when it touches a node of the top row
+    public boolean isTop(int site) {
+        return site < horizontalBonds ? site < cols - 1 : site - horizontalBonds < cols;
+    }
+
+    // a bond is connected to the bottom when it touches a node of the bottom row
+    public boolean isBottom(int site) {
+        return site < horizontalBonds ? site >= (rows - 1) * (cols - 1) : site - horizontalBonds >= (rows - 2) * cols;
+    }
+}
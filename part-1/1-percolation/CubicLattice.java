@@ -0,0 +1,58 @@
+public class CubicLattice implements Lattice {
+    private final int n;
+    private final int layer;
+
+    // n-by-n-by-n simple cubic lattice of sites, indexed (z * n + y) * n + x; percolation runs from layer z = 0 to z = n - 1
+    public CubicLattice(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
+        }
+        if ((long) n * n * n >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("n * n * n must be less than " + Integer.MAX_VALUE + ", " + n + " is not valid");
+        }
+        this.n = n;
+        this.layer = n * n;
+    }
+
+    public int sites() {
+        return layer * n;
+    }
+
+    public int maxNeighbors() {
+        return 6;
+    }
+
+    public int neighbors(int site, int[] neighbors) {
+        int x = site % n;
+        int y = (site / n) % n;
+        int z = site / layer;
+        int count = 0;
+        if (z > 0) {
+            neighbors[count++] = site - layer;
+        }
+        if (z < n - 1) {
+            neighbors[count++] = site + layer;
+        }
+        if (y > 0) {
+            neighbors[count++] = site - n;
+        }
+        if (y < n - 1) {
+            neighbors[count++] = site + n;
+        }
+        if (x > 0) {
+            neighbors[count++] = site - 1;
+        }
+        if (x < n - 1) {
+            neighbors[count++] = site + 1;
+        }
+        return count;
+    }
+
+    public boolean isTop(int site) {
+        return site < layer;
+    }
+
+    public boolean isBottom(int site) {
+        return site >= sites() - layer;
+    }
+}
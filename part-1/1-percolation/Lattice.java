@@ -0,0 +1,16 @@
+public interface Lattice {
+    // returns the number of sites
+    int sites();
+
+    // returns the largest number of neighbors of any site
+    int maxNeighbors();
+
+    // writes the neighbors of site into neighbors, which has room for maxNeighbors(), and returns how many there are
+    int neighbors(int site, int[] neighbors);
+
+    // is the site connected to the top of the system?
+    boolean isTop(int site);
+
+    // is the site connected to the bottom of the system?
+    boolean isBottom(int site);
+}
@@ -0,0 +1,135 @@
+import edu.princeton.cs.algs4.StdOut;
+
+public class LatticePercolation implements PercolationModel {
+    private final Lattice lattice;
+    private final int sites;
+    // open sites and clusters, the same code Percolation runs; this class only enumerates neighbors through the lattice
+    private final SiteClusters clusters;
+    private final int[] neighbors;
+
+    // creates a system on the given lattice, with all sites initially blocked
+    public LatticePercolation(Lattice lattice) {
+        this(lattice, UnionFindEngine.PATH_HALVING);
+    }
+
+    // creates a system on the given lattice, with all sites initially blocked, backed by the given union-find engine
+    public LatticePercolation(Lattice lattice, UnionFindEngine engine) {
+        if (lattice == null) {
+            throw new IllegalArgumentException("lattice cannot be null");
+        }
+        if (engine == null) {
+            throw new IllegalArgumentException("engine cannot be null");
+        }
+        this.lattice = lattice;
+        sites = lattice.sites();
+        if (sites <= 0) {
+            throw new IllegalArgumentException("lattice must have sites, " + sites + " is not valid");
+        }
+        clusters = new SiteClusters(sites, engine);
+        neighbors = new int[lattice.maxNeighbors()];
+    }
+
+    // validates input: siteIndex
+    private void validate(int siteIndex) {
+        if (siteIndex < 0 || siteIndex >= sites) {
+            throw new IllegalArgumentException("siteIndex must be greater or equal than 0 and less than " + sites);
+        }
+    }
+
+    public int sites() {
+        return sites;
+    }
+
+    // opens the site at the given site index if it is not open already
+    public void openSite(int siteIndex) {
+        validate(siteIndex);
+        if (!clusters.open(siteIndex)) {
+            return;
+        }
+        int connections = 0;
+        if (lattice.isTop(siteIndex)) {
+            connections |= SiteClusters.CONNECTED_TOP;
+        }
+        if (lattice.isBottom(siteIndex)) {
+            connections |= SiteClusters.CONNECTED_BOTTOM;
+        }
+        int count = lattice.neighbors(siteIndex, neighbors);
+        for (int i = 0; i < count; i++) {
+            connections |= clusters.connect(siteIndex, neighbors[i]);
+        }
+        clusters.finish(siteIndex, connections);
+    }
+
+    // is the site at the given site index open?
+    public boolean isOpen(int siteIndex) {
+        validate(siteIndex);
+        return clusters.isOpen(siteIndex);
+    }
+
+    // is the site at the given site index full?
+    public boolean isFull(int siteIndex) {
+        validate(siteIndex);
+        return clusters.isFull(siteIndex);
+    }
+
+    // returns the number of open sites
+    public int numberOfOpenSites() {
+        return clusters.numberOfOpenSites();
+    }
+
+    // returns the number of clusters of connected open sites
+    public int numberOfOpenClusters() {
+        return clusters.numberOfOpenClusters();
+    }
+
+    // returns the number of sites in the largest cluster, 0 if no site is open
+    public int largestClusterSize() {
+        return clusters.largestClusterSize();
+    }
+
+    // returns the number of sites in the largest cluster connecting the top and bottom, 0 if the system does not percolate
+    public int spanningClusterSize() {
+        return clusters.spanningClusterSize();
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return clusters.percolates();
+    }
+
+    // blocks every site again so the instance can be reused without reallocating its arrays
+    public void reset() {
+        clusters.reset();
+    }
+
+    // returns the hot-path counts since creation or the last reset, see Percolation.metrics
+    public PercolationMetrics.Snapshot metrics() {
+        return clusters.metrics();
+    }
+
+    // adds the hot-path counts since creation or the last reset to metrics
+    public void addMetricsTo(PercolationMetrics metrics) {
+        clusters.addMetricsTo(metrics);
+    }
+
+    // test client (optional)
+    public static void main(String[] args) {
+        LatticePercolation percolation = new LatticePercolation(new CubicLattice(3));
+        percolation.openSite(4);
+        percolation.openSite(13);
+        StdOut.printf("Does the system percolate? %b\n", percolation.percolates());
+        percolation.openSite(22);
+        StdOut.printf("Open sites = %d\n", percolation.numberOfOpenSites());
+        StdOut.printf("Does the system percolate? %b\n", percolation.percolates());
+
+        // the generic path on a square lattice must agree with Percolation's specialized one
+        LatticePercolation square = new LatticePercolation(new SquareLattice(5, 5));
+        Percolation grid = new Percolation(5);
+        int[] sites = { 7, 12, 2, 17, 22, 13 };
+        for (int site : sites) {
+            square.openSite(site);
+            grid.openSite(site);
+        }
+        StdOut.printf("Square lattice percolates? %b, Percolation percolates? %b\n", square.percolates(), grid.percolates());
+    }
+}
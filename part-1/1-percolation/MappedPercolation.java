@@ -0,0 +1,406 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class MappedPercolation implements Closeable {
+    private static final int HEADER_MAGIC = 0x50455243;
+    private static final int HEADER_VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 1;
+    private static final String HEADER_FILE = "header";
+    private static final String STATE_FILE = "state";
+    private static final String PARENTS_FILE = "parents";
+    // state byte per site: open flag, top and bottom flags (meaningful on roots only) and union-by-rank rank
+    private static final int OPEN = 1;
+    private static final int CONNECTED_TOP = 2;
+    private static final int CONNECTED_BOTTOM = 4;
+    private static final int RANK_SHIFT = 3;
+    private static final int MAX_RANK = 31;
+    private final Path directory;
+    private final long rows;
+    private final long cols;
+    private final MappedRegion state;
+    // parents store parent + 1, so 0 means the site is its own root and a new, zero-filled file needs no initialization
+    private final MappedRegion parents;
+    private long openSites;
+    private boolean percolates;
+    // whether the files may have changed since they were last consistent on disk; recorded in the header before the
+    // first change after a checkpoint, since no single open or reset is one atomic write
+    private boolean dirty;
+
+    // segmented read-write mapping of a file, since a single MappedByteBuffer is limited to 2 GB
+    private static class MappedRegion {
+        private static final int SEGMENT_SHIFT = 30;
+        private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+        private final MappedByteBuffer[] segments;
+
+        MappedRegion(Path file, long bytes, boolean truncate) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (truncate) {
+                    channel.truncate(0);
+                }
+                else if (channel.size() != bytes) {
+                    throw new IllegalArgumentException(file + " must have " + bytes + " bytes, " + channel.size() + " is not valid");
+                }
+                int count = (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+                segments = new MappedByteBuffer[count];
+                for (int i = 0; i < count; i++) {
+                    long position = (long) i << SEGMENT_SHIFT;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(1L << SEGMENT_SHIFT, bytes - position));
+                }
+            }
+        }
+
+        byte getByte(long index) {
+            return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+        }
+
+        void putByte(long index, byte value) {
+            segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+        }
+
+        // longs are 8-byte aligned, so they never straddle two segments
+        long getLong(long index) {
+            long offset = index << 3;
+            return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+        }
+
+        void putLong(long index, long value) {
+            long offset = index << 3;
+            segments[(int) (offset >>> SEGMENT_SHIFT)].putLong((int) (offset & SEGMENT_MASK), value);
+        }
+
+        // zero-fills the whole region in place, reusing the mapped pages
+        void clear() {
+            for (MappedByteBuffer segment : segments) {
+                int limit = segment.limit();
+                int i = 0;
+                for (; i + 8 <= limit; i += 8) {
+                    segment.putLong(i, 0L);
+                }
+                for (; i < limit; i++) {
+                    segment.put(i, (byte) 0);
+                }
+            }
+        }
+
+        void force() {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+    // creates a rows-by-cols grid backed by files in directory, with all sites initially blocked;
+    // existing files in directory are overwritten
+    public MappedPercolation(Path directory, long rows, long cols) throws IOException {
+        this(directory, rows, cols, true);
+    }
+
+    private MappedPercolation(Path directory, long rows, long cols, boolean truncate) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows must be greater than 0, " + rows + " is not valid");
+        }
+        if (cols <= 0) {
+            throw new IllegalArgumentException("cols must be greater than 0, " + cols + " is not valid");
+        }
+        if (rows > Long.MAX_VALUE / 8 / cols) {
+            throw new IllegalArgumentException("rows * cols must be less or equal than " + (Long.MAX_VALUE / 8) + ", " + rows + " * " + cols + " is not valid");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.rows = rows;
+        this.cols = cols;
+        state = new MappedRegion(directory.resolve(STATE_FILE), rows * cols, truncate);
+        parents = new MappedRegion(directory.resolve(PARENTS_FILE), rows * cols * 8, truncate);
+        if (truncate) {
+            writeHeader(false);
+        }
+    }
+
+    // resumes a grid from the files of a previous run in directory: as of its last checkpoint if nothing changed
+    // since, otherwise as the files are now, after rebuilding the clusters from the open flags alone, since a run
+    // stopped in the middle of an open or a reset can leave a site open but not joined, or a root without its flags
+    public static MappedPercolation resume(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(HEADER_FILE)));
+        if (header.remaining() != HEADER_BYTES || header.getInt() != HEADER_MAGIC || header.getInt() != HEADER_VERSION) {
+            throw new IllegalArgumentException(directory + " does not contain a valid grid");
+        }
+        long rows = header.getLong();
+        long cols = header.getLong();
+        boolean dirty = header.get() != 0;
+        MappedPercolation percolation = new MappedPercolation(directory, rows, cols, false);
+        if (dirty) {
+            percolation.rebuild();
+        }
+        else {
+            percolation.recount();
+        }
+        return percolation;
+    }
+
+    // recomputes every cluster from the open flags: makes every site its own root with only its open flag and, in the
+    // top and bottom rows, its own connection flag, then joins every open site with its open neighbors again; the
+    // files stay marked dirty until the next checkpoint
+    private void rebuild() {
+        dirty = true;
+        parents.clear();
+        long sites = rows * cols;
+        for (long siteIndex = 0; siteIndex < sites; siteIndex++) {
+            int siteState = stateOf(siteIndex) & OPEN;
+            if (siteState != 0 && siteIndex < cols) {
+                siteState |= CONNECTED_TOP;
+            }
+            if (siteState != 0 && siteIndex >= sites - cols) {
+                siteState |= CONNECTED_BOTTOM;
+            }
+            state.putByte(siteIndex, (byte) siteState);
+        }
+        openSites = 0;
+        percolates = false;
+        for (long siteIndex = 0; siteIndex < sites; siteIndex++) {
+            if ((stateOf(siteIndex) & OPEN) != 0) {
+                join(siteIndex, siteIndex / cols + 1, siteIndex % cols + 1);
+            }
+        }
+    }
+
+    // rebuilds the open-site count and the percolation flag from the mapped files, rather than trusting counters
+    // recorded at some earlier point, so they always agree with the sites
+    private void recount() {
+        long sites = rows * cols;
+        long open = 0;
+        for (long siteIndex = 0; siteIndex < sites; siteIndex++) {
+            if ((stateOf(siteIndex) & OPEN) != 0) {
+                open++;
+            }
+        }
+        openSites = open;
+        percolates = false;
+        long bottomRow = sites - cols;
+        for (long siteIndex = bottomRow; siteIndex < sites && !percolates; siteIndex++) {
+            if ((stateOf(siteIndex) & OPEN) != 0 && (stateOf(find(siteIndex)) & CONNECTED_TOP) != 0) {
+                percolates = true;
+            }
+        }
+    }
+
+    // validates input: row and col
+    private void validate(long row, long col) {
+        if (row < 1 || row > rows) {
+            throw new IllegalArgumentException("row must be greater than 0 and less or equal than " + rows);
+        }
+        if (col < 1 || col > cols) {
+            throw new IllegalArgumentException("col must be greater than 0 and less or equal than " + cols);
+        }
+    }
+
+    // calculates site index from row and col
+    private long calculateSiteIndex(long row, long col) {
+        return (row - 1) * cols + col - 1;
+    }
+
+    private int stateOf(long siteIndex) {
+        return state.getByte(siteIndex) & 0xFF;
+    }
+
+    private long parentOf(long siteIndex) {
+        long parent = parents.getLong(siteIndex);
+        return parent == 0 ? siteIndex : parent - 1;
+    }
+
+    // returns the root of the site, with path halving
+    private long find(long siteIndex) {
+        long p = siteIndex;
+        while (true) {
+            long parent = parentOf(p);
+            if (parent == p) {
+                return p;
+            }
+            long grandparent = parentOf(parent);
+            if (grandparent != parent) {
+                parents.putLong(p, grandparent + 1);
+            }
+            p = grandparent;
+        }
+    }
+
+    // links the roots of the sites by rank, carrying over their top and bottom flags; returns the new root
+    private long union(long p, long q) {
+        long rootP = find(p);
+        long rootQ = find(q);
+        if (rootP == rootQ) {
+            return rootP;
+        }
+        int stateP = stateOf(rootP);
+        int stateQ = stateOf(rootQ);
+        int rankP = stateP >>> RANK_SHIFT;
+        int rankQ = stateQ >>> RANK_SHIFT;
+        int connections = (stateP | stateQ) & (CONNECTED_TOP | CONNECTED_BOTTOM);
+        if (rankP < rankQ) {
+            parents.putLong(rootP, rootQ + 1);
+            state.putByte(rootQ, (byte) (stateQ | connections));
+            return rootQ;
+        }
+        parents.putLong(rootQ, rootP + 1);
+        if (rankP == rankQ && rankP < MAX_RANK) {
+            rankP++;
+        }
+        state.putByte(rootP, (byte) ((rankP << RANK_SHIFT) | (stateP & ~(-1 << RANK_SHIFT)) | connections));
+        return rootP;
+    }
+
+    private void unionWithOpenNeighbor(long siteIndex, long neighborIndex) {
+        if ((stateOf(neighborIndex) & OPEN) != 0) {
+            union(siteIndex, neighborIndex);
+        }
+    }
+
+    // opens the site (row, col) if it is not open already
+    public void open(long row, long col) {
+        validate(row, col);
+        long siteIndex = calculateSiteIndex(row, col);
+        if ((stateOf(siteIndex) & OPEN) != 0) {
+            return;
+        }
+        markDirty();
+        state.putByte(siteIndex, (byte) (stateOf(siteIndex) | OPEN));
+        join(siteIndex, row, col);
+    }
+
+    // flags the open site (row, col) if it is in the top or bottom row, unions it with its open neighbors
+    // and updates the counters
+    private void join(long siteIndex, long row, long col) {
+        int siteState = stateOf(siteIndex);
+        if (row == 1) {
+            siteState |= CONNECTED_TOP;
+        }
+        if (row == rows) {
+            siteState |= CONNECTED_BOTTOM;
+        }
+        state.putByte(siteIndex, (byte) siteState);
+        if (row > 1) {
+            unionWithOpenNeighbor(siteIndex, siteIndex - cols);
+        }
+        if (row < rows) {
+            unionWithOpenNeighbor(siteIndex, siteIndex + cols);
+        }
+        if (col > 1) {
+            unionWithOpenNeighbor(siteIndex, siteIndex - 1);
+        }
+        if (col < cols) {
+            unionWithOpenNeighbor(siteIndex, siteIndex + 1);
+        }
+        int rootState = stateOf(find(siteIndex));
+        if ((rootState & CONNECTED_TOP) != 0 && (rootState & CONNECTED_BOTTOM) != 0) {
+            percolates = true;
+        }
+        openSites++;
+    }
+
+    // is the site (row, col) open?
+    public boolean isOpen(long row, long col) {
+        validate(row, col);
+        return (stateOf(calculateSiteIndex(row, col)) & OPEN) != 0;
+    }
+
+    // is the site (row, col) full?
+    public boolean isFull(long row, long col) {
+        validate(row, col);
+        long siteIndex = calculateSiteIndex(row, col);
+        return (stateOf(siteIndex) & OPEN) != 0 && (stateOf(find(siteIndex)) & CONNECTED_TOP) != 0;
+    }
+
+    // returns the number of open sites
+    public long numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // blocks every site again by zero-filling the mapped files in place, so the next trial reuses the same pages
+    public void reset() {
+        markDirty();
+        state.clear();
+        parents.clear();
+        openSites = 0;
+        percolates = false;
+    }
+
+    // flushes the mapped files to disk and marks them consistent, so a resume can trust them as they are
+    public void checkpoint() throws IOException {
+        state.force();
+        parents.force();
+        writeHeader(false);
+        dirty = false;
+    }
+
+    // records in the header that the files are about to change, before the first change after a checkpoint
+    private void markDirty() {
+        if (dirty) {
+            return;
+        }
+        try {
+            writeHeader(true);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not mark " + directory + " as changed", e);
+        }
+        dirty = true;
+    }
+
+    // checkpoints the grid; the mappings themselves are released when the instance is garbage collected
+    public void close() throws IOException {
+        checkpoint();
+    }
+
+    // writes the header to a temporary file and moves it into place, so a stopped run never leaves half a header
+    private void writeHeader(boolean changed) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(HEADER_MAGIC);
+        header.putInt(HEADER_VERSION);
+        header.putLong(rows);
+        header.putLong(cols);
+        header.put((byte) (changed ? 1 : 0));
+        Path temporary = directory.resolve(HEADER_FILE + ".tmp");
+        Files.write(temporary, header.array());
+        Files.move(temporary, directory.resolve(HEADER_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // test client (optional)
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "mapped-percolation");
+        try (MappedPercolation percolation = new MappedPercolation(directory, 5, 5)) {
+            percolation.open(4, 2);
+            percolation.open(3, 2);
+            percolation.open(3, 3);
+            percolation.open(1, 2);
+            percolation.checkpoint();
+        }
+        try (MappedPercolation percolation = MappedPercolation.resume(directory)) {
+            percolation.open(5, 2);
+            percolation.open(1, 3);
+            percolation.open(2, 3);
+            StdOut.printf("Open sites = %d\n", percolation.numberOfOpenSites());
+            StdOut.printf("Does the system percolate? %b\n", percolation.percolates());
+        }
+    }
+}
@@ -1,99 +1,267 @@
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
 
-public class Percolation {
-    private final int n;
-    private boolean [][] grid;
-    private final WeightedQuickUnionUF wquUF;
-    private final int topVirtualSiteIndex;
-    private int openSites;
+public class Percolation implements PercolationModel {
+    private static final int BITS_PER_WORD_SHIFT = 6;
+    private static final int BIT_INDEX_MASK = 63;
+    private final int rows;
+    private final int cols;
+    private final boolean periodic;
+    // open sites and clusters; this class only adds the grid's neighbor arithmetic, inlined on the hot path
+    private final SiteClusters clusters;
+
+    // side boundaries of the grid; top and bottom rows are never wrapped since percolation is measured between them
+    public enum Boundary {
+        // first and last columns are not adjacent
+        WALLS,
+        // first and last columns are adjacent, so the grid is a cylinder
+        PERIODIC
+    }
 
     // creates n-by-n grid, with all sites initially blocked
     public Percolation(int n) {
-        if (n <= 0) {
-            throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
-        }
-        this.n = n;
-        // create grid
-        grid = new boolean[n][n];
-        for (int row = 0; row < n; row++) {
-            for (int col = 0; col < n; col++) {
-                grid[row][col] = false;
-            }
+        this(n, n);
+    }
+
+    // creates n-by-n grid, with all sites initially blocked, backed by the given union-find engine
+    public Percolation(int n, UnionFindEngine engine) {
+        this(n, n, Boundary.WALLS, engine);
+    }
+
+    // creates rows-by-cols grid, with all sites initially blocked
+    public Percolation(int rows, int cols) {
+        this(rows, cols, Boundary.WALLS, UnionFindEngine.PATH_HALVING);
+    }
+
+    // creates rows-by-cols grid with the given side boundaries, with all sites initially blocked,
+    // backed by the given union-find engine
+    public Percolation(int rows, int cols, Boundary boundary, UnionFindEngine engine) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows must be greater than 0, " + rows + " is not valid");
+        }
+        if (cols <= 0) {
+            throw new IllegalArgumentException("cols must be greater than 0, " + cols + " is not valid");
+        }
+        if ((long) rows * cols >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("rows * cols must be less than " + Integer.MAX_VALUE + ", " + rows + " * " + cols + " is not valid");
+        }
+        if (boundary == null) {
+            throw new IllegalArgumentException("boundary cannot be null");
         }
-        // create wquUF with additional index for the top virtual site (index = n * n)
-        topVirtualSiteIndex = n * n;
-        wquUF = new WeightedQuickUnionUF(n * n + 1);
-        // connect top virtual site to top row
-        for (int col = 0; col < n; col++) {
-            wquUF.union(topVirtualSiteIndex, col);
+        if (engine == null) {
+            throw new IllegalArgumentException("engine cannot be null");
         }
-        // keep track of open sites
-        openSites = 0;
+        this.rows = rows;
+        this.cols = cols;
+        this.periodic = boundary == Boundary.PERIODIC;
+        clusters = new SiteClusters(rows * cols, engine);
     }
 
     // validates input: row and col
     private void validate(int row, int col) {
-        if (row < 1 || row > n) {
-            throw new IllegalArgumentException("row must be greater than 0 and less or equal than " + n);
+        if (row < 1 || row > rows) {
+            throw new IllegalArgumentException("row must be greater than 0 and less or equal than " + rows);
         }
-        if (col < 1 || col > n) {
-            throw new IllegalArgumentException("col must be greater than 0 and less or equal than " + n);
+        if (col < 1 || col > cols) {
+            throw new IllegalArgumentException("col must be greater than 0 and less or equal than " + cols);
         }
     }
 
     // calculates site index from row and col
     private int calculateSiteIndex(int row, int col) {
-        return (row - 1) * n + col - 1;
+        return (row - 1) * cols + col - 1;
+    }
+
+    // creates a bitset with room for the given number of bits, all clear
+    static long [] newBitset(int bits) {
+        return new long[(int) (((long) bits + BIT_INDEX_MASK) >>> BITS_PER_WORD_SHIFT)];
+    }
+
+    // is the bit at index set in the bitset?
+    static boolean isSet(long [] bits, int index) {
+        return (bits[index >>> BITS_PER_WORD_SHIFT] & (1L << (index & BIT_INDEX_MASK))) != 0;
+    }
+
+    // sets the bit at index in the bitset
+    static void set(long [] bits, int index) {
+        bits[index >>> BITS_PER_WORD_SHIFT] |= 1L << (index & BIT_INDEX_MASK);
+    }
+
+    // is the site at the given site index open?
+    private boolean isOpenSite(int siteIndex) {
+        return clusters.isOpen(siteIndex);
     }
 
     // opens the site (row, col) if it is not open already
     public void open(int row, int col) {
         validate(row, col);
-        if (isOpen(row, col)) {
+        openSite(calculateSiteIndex(row, col), row, col);
+    }
+
+    // returns the number of sites
+    public int sites() {
+        return rows * cols;
+    }
+
+    // opens the site at the given row-major site index, see siteIndex, if it is not open already
+    public void openSite(int siteIndex) {
+        if (siteIndex < 0 || siteIndex >= rows * cols) {
+            throw new IllegalArgumentException("siteIndex must be greater or equal than 0 and less than " + rows * cols);
+        }
+        openValidSite(siteIndex);
+    }
+
+    // opens the site at the given site index if it is not open already; the index is not validated
+    private void openValidSite(int siteIndex) {
+        openSite(siteIndex, siteIndex / cols + 1, siteIndex % cols + 1);
+    }
+
+    // returns the row-major site index of (row, col), as used by openSite and openAll: (row - 1) * cols + (col - 1)
+    public int siteIndex(int row, int col) {
+        validate(row, col);
+        return calculateSiteIndex(row, col);
+    }
+
+    // opens every site in siteIndices, in order, validating the whole batch once before opening anything;
+    // returns the position in siteIndices of the site whose opening made the system percolate,
+    // or -1 if the system did not start percolating during this call
+    public int openAll(int[] siteIndices) {
+        if (siteIndices == null) {
+            throw new IllegalArgumentException("siteIndices cannot be null");
+        }
+        int sites = rows * cols;
+        for (int i = 0; i < siteIndices.length; i++) {
+            if (siteIndices[i] < 0 || siteIndices[i] >= sites) {
+                throw new IllegalArgumentException("siteIndices[" + i + "] must be greater or equal than 0 and less than " + sites + ", " + siteIndices[i] + " is not valid");
+            }
+        }
+        boolean alreadyPercolated = clusters.percolates();
+        int percolatedAt = -1;
+        for (int i = 0; i < siteIndices.length; i++) {
+            openValidSite(siteIndices[i]);
+            if (percolatedAt < 0 && !alreadyPercolated && clusters.percolates()) {
+                percolatedAt = i;
+            }
+        }
+        return percolatedAt;
+    }
+
+    // opens the sites of the given row whose column bit is set in colMask (bit col - 1, 64 columns per word),
+    // validating the row and the mask once; returns the column whose opening made the system percolate,
+    // or -1 if the system did not start percolating during this call
+    public int openRow(int row, long[] colMask) {
+        validate(row, 1);
+        if (colMask == null) {
+            throw new IllegalArgumentException("colMask cannot be null");
+        }
+        int words = (cols + BIT_INDEX_MASK) >>> BITS_PER_WORD_SHIFT;
+        if (colMask.length != words) {
+            throw new IllegalArgumentException("colMask must have " + words + " words, " + colMask.length + " is not valid");
+        }
+        if ((cols & BIT_INDEX_MASK) != 0 && (colMask[words - 1] >>> (cols & BIT_INDEX_MASK)) != 0) {
+            throw new IllegalArgumentException("colMask cannot have bits set beyond column " + cols);
+        }
+        boolean alreadyPercolated = clusters.percolates();
+        int percolatedAt = -1;
+        int rowStart = calculateSiteIndex(row, 1);
+        for (int word = 0; word < words; word++) {
+            long bits = colMask[word];
+            while (bits != 0) {
+                int col = (word << BITS_PER_WORD_SHIFT) + Long.numberOfTrailingZeros(bits) + 1;
+                bits &= bits - 1;
+                openSite(rowStart + col - 1, row, col);
+                if (percolatedAt < 0 && !alreadyPercolated && clusters.percolates()) {
+                    percolatedAt = col;
+                }
+            }
+        }
+        return percolatedAt;
+    }
+
+    // opens the site at site index (row, col) if it is not open already
+    private void openSite(int siteIndex, int row, int col) {
+        if (!clusters.open(siteIndex)) {
             return;
         }
-        grid[row-1][col-1] = true;
-        if (row > 1 && isOpen(row-1, col)) {
-            wquUF.union(calculateSiteIndex(row, col), calculateSiteIndex(row-1, col));
+        int connections = 0;
+        if (row == 1) {
+            connections |= SiteClusters.CONNECTED_TOP;
+        }
+        if (row == rows) {
+            connections |= SiteClusters.CONNECTED_BOTTOM;
+        }
+        if (row > 1) {
+            connections |= clusters.connect(siteIndex, siteIndex - cols);
         }
-        if (row < n && isOpen(row+1, col)) {
-            wquUF.union(calculateSiteIndex(row, col), calculateSiteIndex(row+1, col));
+        if (row < rows) {
+            connections |= clusters.connect(siteIndex, siteIndex + cols);
         }
-        if (col > 1 && isOpen(row, col-1)) {
-            wquUF.union(calculateSiteIndex(row, col), calculateSiteIndex(row, col-1));
+        if (col > 1) {
+            connections |= clusters.connect(siteIndex, siteIndex - 1);
         }
-        if (col < n && isOpen(row, col+1)) {
-            wquUF.union(calculateSiteIndex(row, col), calculateSiteIndex(row, col+1));
+        else if (periodic) {
+            connections |= clusters.connect(siteIndex, siteIndex + cols - 1);
         }
-        openSites++;
+        if (col < cols) {
+            connections |= clusters.connect(siteIndex, siteIndex + 1);
+        }
+        else if (periodic) {
+            connections |= clusters.connect(siteIndex, siteIndex - cols + 1);
+        }
+        clusters.finish(siteIndex, connections);
     }
 
     // is the site (row, col) open?
     public boolean isOpen(int row, int col) {
         validate(row, col);
-        return grid[row-1][col-1];
+        return isOpenSite(calculateSiteIndex(row, col));
     }
 
     // is the site (row, col) full?
     public boolean isFull(int row, int col) {
         validate(row, col);
-        return isOpen(row, col) && wquUF.connected(calculateSiteIndex(row, col), topVirtualSiteIndex);
+        int siteIndex = calculateSiteIndex(row, col);
+        return clusters.isFull(siteIndex);
+    }
+
+    // blocks every site again so the instance can be reused without reallocating its arrays
+    public void reset() {
+        clusters.reset();
+    }
+
+    // returns the hot-path counts since creation or the last reset; all zero unless the JVM runs with
+    // -Dpercolation.metrics=true, see PercolationMetrics
+    public PercolationMetrics.Snapshot metrics() {
+        return clusters.metrics();
+    }
+
+    // adds the hot-path counts since creation or the last reset to metrics
+    public void addMetricsTo(PercolationMetrics metrics) {
+        clusters.addMetricsTo(metrics);
     }
 
     // returns the number of open sites
     public int numberOfOpenSites() {
-        return openSites;
+        return clusters.numberOfOpenSites();
+    }
+
+    // returns the number of clusters of connected open sites
+    public int numberOfOpenClusters() {
+        return clusters.numberOfOpenClusters();
+    }
+
+    // returns the number of sites in the largest cluster, 0 if no site is open
+    public int largestClusterSize() {
+        return clusters.largestClusterSize();
+    }
+
+    // returns the number of sites in the largest cluster connecting the top and bottom rows, 0 if the system does not percolate
+    public int spanningClusterSize() {
+        return clusters.spanningClusterSize();
     }
 
     // does the system percolate?
     public boolean percolates() {
-        for (int col = 1; col <= n; col++) {
-            if (isFull(n, col)) {
-                return true;
-            }
-        }
-        return false;
+        return clusters.percolates();
     }
 
     // test client (optional)
@@ -108,5 +276,7 @@ public class Percolation {
         percolation.open(2, 3);
         StdOut.printf("Open sites = %d\n", percolation.numberOfOpenSites());
         StdOut.printf("Does the system percolate? %b\n", percolation.percolates());
+        StdOut.printf("Open clusters = %d, largest = %d, spanning = %d\n", percolation.numberOfOpenClusters(),
+            percolation.largestClusterSize(), percolation.spanningClusterSize());
     }
 }
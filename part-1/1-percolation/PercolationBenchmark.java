@@ -0,0 +1,243 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+public class PercolationBenchmark {
+    private static final int[] SIZES = { 64, 512, 4096 };
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final long SEED = 20170101L;
+    private static final String ONLY_ARGUMENT = "--only";
+    // results of every operation are folded in here, so the JIT cannot remove the measured code
+    private static volatile long sink;
+
+    // one measured operation; returns the number of elementary operations it performed
+    private interface Operation {
+        long run();
+    }
+
+    // a named operation, set up only when the benchmark is selected so unselected sizes allocate nothing
+    private static class Benchmark {
+        private final String name;
+        private final Supplier<Operation> setup;
+
+        Benchmark(String name, Supplier<Operation> setup) {
+            this.name = name;
+            this.setup = setup;
+        }
+    }
+
+    // returns a random permutation of the n * n site indices
+    private static int[] permutation(int n, SplittableRandom random) {
+        int[] sites = new int[n * n];
+        for (int i = 0; i < sites.length; i++) {
+            int j = random.nextInt(i + 1);
+            sites[i] = sites[j];
+            sites[j] = i;
+        }
+        return sites;
+    }
+
+    // opens sites of the permutation until the system percolates, as a trial does
+    private static Percolation percolated(int n, int[] sites) {
+        Percolation percolation = new Percolation(n);
+        for (int i = 0; !percolation.percolates(); i++) {
+            percolation.openSite(sites[i]);
+        }
+        return percolation;
+    }
+
+    // returns random pairs of elements in [0, elements) to union, flattened
+    private static int[] pairs(int elements) {
+        int[] pairs = new int[2 * Math.min(elements, 1 << 20)];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(elements);
+        }
+        return pairs;
+    }
+
+    // unions every pair, then finds the root of every element of the pairs
+    private static long unionFind(UnionFind uf, int[] pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            uf.union(pairs[i], pairs[i + 1]);
+        }
+        long roots = 0;
+        for (int pair : pairs) {
+            roots += uf.find(pair);
+        }
+        return roots;
+    }
+
+    private static List<Benchmark> benchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (final int n : SIZES) {
+            benchmarks.add(new Benchmark("Percolation.open(row, col) n=" + n, () -> {
+                final int[] sites = permutation(n, new SplittableRandom(SEED));
+                final int[] rows = new int[sites.length];
+                final int[] cols = new int[sites.length];
+                for (int i = 0; i < sites.length; i++) {
+                    rows[i] = sites[i] / n + 1;
+                    cols[i] = sites[i] % n + 1;
+                }
+                final Percolation percolation = new Percolation(n);
+                return () -> {
+                    percolation.reset();
+                    for (int i = 0; i < sites.length; i++) {
+                        percolation.open(rows[i], cols[i]);
+                    }
+                    sink += percolation.numberOfOpenSites();
+                    return sites.length;
+                };
+            }));
+            // same sites opened by index, which skips the (row, col) validation and index math
+            benchmarks.add(new Benchmark("Percolation.openSite(index) n=" + n, () -> {
+                final int[] sites = permutation(n, new SplittableRandom(SEED));
+                final Percolation percolation = new Percolation(n);
+                return () -> {
+                    percolation.reset();
+                    for (int site : sites) {
+                        percolation.openSite(site);
+                    }
+                    sink += percolation.numberOfOpenSites();
+                    return sites.length;
+                };
+            }));
+            benchmarks.add(new Benchmark("Percolation.isFull n=" + n, () -> {
+                final int[] sites = permutation(n, new SplittableRandom(SEED));
+                final Percolation percolation = percolated(n, sites);
+                final int queries = Math.min(sites.length, 1 << 20);
+                return () -> {
+                    int full = 0;
+                    for (int i = 0; i < queries; i++) {
+                        if (percolation.isFull(sites[i] / n + 1, sites[i] % n + 1)) {
+                            full++;
+                        }
+                    }
+                    sink += full;
+                    return queries;
+                };
+            }));
+            benchmarks.add(new Benchmark("Percolation.percolates n=" + n, () -> {
+                // alternate between a percolating and a non-percolating grid so the call cannot be hoisted out of the loop
+                final int[] sites = permutation(n, new SplittableRandom(SEED));
+                final Percolation[] percolations = { percolated(n, sites), new Percolation(n) };
+                percolations[1].openSite(sites[0]);
+                return () -> {
+                    int percolating = 0;
+                    for (int i = 0; i < 1 << 20; i++) {
+                        if (percolations[i & 1].percolates()) {
+                            percolating++;
+                        }
+                    }
+                    sink += percolating;
+                    return 1 << 20;
+                };
+            }));
+            benchmarks.add(new Benchmark("PercolationStats trial n=" + n, () -> () -> {
+                sink += Double.doubleToLongBits(new PercolationStats(n, 1).mean());
+                return 1;
+            }));
+            benchmarks.add(new Benchmark("WeightedQuickUnionUF union+find n=" + n, () -> {
+                final int[] pairs = pairs(n * n);
+                return () -> {
+                    WeightedQuickUnionUF uf = new WeightedQuickUnionUF(n * n);
+                    for (int i = 0; i < pairs.length; i += 2) {
+                        uf.union(pairs[i], pairs[i + 1]);
+                    }
+                    long roots = 0;
+                    for (int pair : pairs) {
+                        roots += uf.find(pair);
+                    }
+                    sink += roots;
+                    return pairs.length / 2 + pairs.length;
+                };
+            }));
+            for (final UnionFindEngine engine : UnionFindEngine.values()) {
+                benchmarks.add(new Benchmark(engine + " union+find n=" + n, () -> {
+                    final int[] pairs = pairs(n * n);
+                    final UnionFind uf = engine.create(n * n);
+                    return () -> {
+                        uf.reset();
+                        sink += unionFind(uf, pairs);
+                        return pairs.length / 2 + pairs.length;
+                    };
+                }));
+            }
+        }
+        return benchmarks;
+    }
+
+    // runs the operation repeatedly for one iteration and returns the average nanoseconds per elementary operation
+    private static double iteration(Operation operation) {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            operations += operation.run();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return (1.0 * elapsed) / operations;
+    }
+
+    // runs the benchmark warmup and measurement iterations in this JVM and prints the mean and standard deviation
+    // of ns/op over the measurement iterations
+    private static void measure(Benchmark benchmark) {
+        Operation operation = benchmark.setup.get();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(operation);
+        }
+        RunningStats nanosPerOperation = new RunningStats();
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            nanosPerOperation.add(iteration(operation));
+        }
+        StdOut.printf("%-45s %12.3f ns/op  +- %.3f\n", benchmark.name, nanosPerOperation.mean(), nanosPerOperation.stddev());
+    }
+
+    // runs the benchmark named name in a new JVM with the same class path and JVM options as this one, so its JIT
+    // profile and heap are not shaped by the benchmarks run before it
+    private static void fork(String name) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PercolationBenchmark.class.getName());
+        command.add(ONLY_ARGUMENT);
+        command.add(name);
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("benchmark " + name + " failed with exit code " + exitCode);
+        }
+    }
+
+    // runs the benchmarks whose names contain the first argument, or all of them, one at a time, each in its own JVM;
+    // with --only name, runs exactly the benchmark named name in this JVM
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<Benchmark> benchmarks = benchmarks();
+        if (args.length > 0 && args[0].equals(ONLY_ARGUMENT)) {
+            String name = args.length > 1 ? args[1] : "";
+            for (Benchmark benchmark : benchmarks) {
+                if (benchmark.name.equals(name)) {
+                    measure(benchmark);
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("no benchmark is named " + name);
+        }
+        String filter = args.length > 0 ? args[0] : "";
+        for (Benchmark benchmark : benchmarks) {
+            if (benchmark.name.contains(filter)) {
+                fork(benchmark.name);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class PercolationMetrics implements PercolationMetricsMXBean {
+    // counters are only updated when the JVM is started with -Dpercolation.metrics=true; the flag is a static final
+    // constant, so when it is off the JIT folds every guarded update away and the hot path pays nothing
+    static final boolean ENABLED = Boolean.getBoolean("percolation.metrics");
+    private static final String MBEAN_NAME = "percolation:type=PercolationMetrics";
+    private static final PercolationMetrics GLOBAL = new PercolationMetrics(null);
+    private final PercolationMetrics parent;
+    private final LongAdder openCalls = new LongAdder();
+    private final LongAdder noOpOpens = new LongAdder();
+    private final LongAdder unions = new LongAdder();
+    private final LongAdder finds = new LongAdder();
+    private final LongAdder findSteps = new LongAdder();
+    private final LongAdder trials = new LongAdder();
+    private final LongAdder trialNanos = new LongAdder();
+    private final LongAdder percolatesCalls = new LongAdder();
+    private final LongAdder percolatesNanos = new LongAdder();
+
+    // immutable copy of the counters at one point in time
+    public static final class Snapshot {
+        private final long openCalls;
+        private final long noOpOpens;
+        private final long unions;
+        private final long finds;
+        private final long findSteps;
+        private final long trials;
+        private final long trialNanos;
+        private final long percolatesCalls;
+        private final long percolatesNanos;
+
+        Snapshot(long openCalls, long noOpOpens, long unions, long finds, long findSteps,
+                 long trials, long trialNanos, long percolatesCalls, long percolatesNanos) {
+            this.openCalls = openCalls;
+            this.noOpOpens = noOpOpens;
+            this.unions = unions;
+            this.finds = finds;
+            this.findSteps = findSteps;
+            this.trials = trials;
+            this.trialNanos = trialNanos;
+            this.percolatesCalls = percolatesCalls;
+            this.percolatesNanos = percolatesNanos;
+        }
+
+        public long openCalls() {
+            return openCalls;
+        }
+
+        public long noOpOpens() {
+            return noOpOpens;
+        }
+
+        public long unions() {
+            return unions;
+        }
+
+        public long finds() {
+            return finds;
+        }
+
+        public long findSteps() {
+            return findSteps;
+        }
+
+        public long trials() {
+            return trials;
+        }
+
+        public long trialNanos() {
+            return trialNanos;
+        }
+
+        public long percolatesCalls() {
+            return percolatesCalls;
+        }
+
+        public long percolatesNanos() {
+            return percolatesNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("open calls = %d (%d no-ops), unions = %d, finds = %d (%d steps), "
+                + "trials = %d (%d ns), percolates calls = %d (%d ns)", openCalls, noOpOpens, unions, finds, findSteps,
+                trials, trialNanos, percolatesCalls, percolatesNanos);
+        }
+    }
+
+    // creates counters that also add everything recorded to parent, if it is not null
+    PercolationMetrics(PercolationMetrics parent) {
+        this.parent = parent;
+    }
+
+    // returns the counters every PercolationStats run adds to, across the whole JVM
+    public static PercolationMetrics global() {
+        return GLOBAL;
+    }
+
+    // registers the global counters with the platform MBean server as percolation:type=PercolationMetrics;
+    // returns false if metrics are disabled or the bean is registered already
+    public static synchronized boolean registerMBean() {
+        if (!ENABLED) {
+            return false;
+        }
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                return false;
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, name);
+            return true;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("could not register " + MBEAN_NAME, e);
+        }
+    }
+
+    // adds the hot-path counts of a percolation system
+    void addOpens(long openCallCount, long noOpOpenCount, long unionCount, long findCount, long findStepCount) {
+        openCalls.add(openCallCount);
+        noOpOpens.add(noOpOpenCount);
+        unions.add(unionCount);
+        finds.add(findCount);
+        findSteps.add(findStepCount);
+        if (parent != null) {
+            parent.addOpens(openCallCount, noOpOpenCount, unionCount, findCount, findStepCount);
+        }
+    }
+
+    // adds one trial that took nanos, of which percolatesNanosCount were spent in percolatesCallCount checks
+    void addTrial(long nanos, long percolatesCallCount, long percolatesNanosCount) {
+        trials.increment();
+        trialNanos.add(nanos);
+        percolatesCalls.add(percolatesCallCount);
+        percolatesNanos.add(percolatesNanosCount);
+        if (parent != null) {
+            parent.addTrial(nanos, percolatesCallCount, percolatesNanosCount);
+        }
+    }
+
+    // returns a copy of the counters; counters updated concurrently may or may not be included
+    public Snapshot snapshot() {
+        return new Snapshot(openCalls.sum(), noOpOpens.sum(), unions.sum(), finds.sum(), findSteps.sum(),
+            trials.sum(), trialNanos.sum(), percolatesCalls.sum(), percolatesNanos.sum());
+    }
+
+    public long getOpenCalls() {
+        return openCalls.sum();
+    }
+
+    public long getNoOpOpens() {
+        return noOpOpens.sum();
+    }
+
+    public long getUnions() {
+        return unions.sum();
+    }
+
+    public long getFinds() {
+        return finds.sum();
+    }
+
+    public long getFindSteps() {
+        return findSteps.sum();
+    }
+
+    public long getTrials() {
+        return trials.sum();
+    }
+
+    public long getTrialNanos() {
+        return trialNanos.sum();
+    }
+
+    public long getPercolatesCalls() {
+        return percolatesCalls.sum();
+    }
+
+    public long getPercolatesNanos() {
+        return percolatesNanos.sum();
+    }
+
+    // test client (optional), run with -Dpercolation.metrics=true
+    public static void main(String[] args) {
+        StdOut.printf("Metrics enabled? %b\n", ENABLED);
+        new PercolationStats(64, 20, 20170101L);
+        StdOut.println(global().snapshot());
+    }
+}
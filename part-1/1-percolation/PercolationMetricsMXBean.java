@@ -0,0 +1,29 @@
+// JMX view of PercolationMetrics, see PercolationMetrics.registerMBean
+public interface PercolationMetricsMXBean {
+    // number of calls that asked to open a site, including sites that were open already
+    long getOpenCalls();
+
+    // number of open calls on sites that were open already
+    long getNoOpOpens();
+
+    // number of unions that merged two different clusters
+    long getUnions();
+
+    // number of root lookups made in the union-find, including the two inside every union and the one inside every size
+    long getFinds();
+
+    // number of parent links followed by the union-find while finding roots
+    long getFindSteps();
+
+    // number of trials run
+    long getTrials();
+
+    // total time spent running trials, in nanoseconds
+    long getTrialNanos();
+
+    // number of percolates checks made by trials
+    long getPercolatesCalls();
+
+    // total time trials spent in percolates checks, in nanoseconds
+    long getPercolatesNanos();
+}
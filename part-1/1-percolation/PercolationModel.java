@@ -0,0 +1,31 @@
+// a percolation system whose sites are addressed by index in [0, sites()), as driven by PercolationStats trials
+interface PercolationModel {
+    // returns the number of sites
+    int sites();
+
+    // opens the site at the given site index if it is not open already
+    void openSite(int siteIndex);
+
+    // returns the number of open sites
+    int numberOfOpenSites();
+
+    // returns the number of clusters of connected open sites
+    int numberOfOpenClusters();
+
+    // returns the number of sites in the largest cluster
+    int largestClusterSize();
+
+    // returns the number of sites in the largest cluster connecting top and bottom, 0 if the system does not percolate
+    int spanningClusterSize();
+
+    // does the system percolate?
+    boolean percolates();
+
+    // blocks every site again
+    void reset();
+
+    // adds the hot-path counts since the last reset to metrics; systems without counters add nothing
+    default void addMetricsTo(PercolationMetrics metrics) {
+        // Do nothing
+    }
+}
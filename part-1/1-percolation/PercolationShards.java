@@ -0,0 +1,177 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+public class PercolationShards {
+    private static final int SHARD_MAGIC = 0x50534844;
+    private static final int SHARD_VERSION = 1;
+
+    // summary of the trials [fromTrial, toTrial) of a run on an n-by-n grid with the given seed
+    private static class Shard {
+        private int n;
+        private long seed;
+        private int fromTrial;
+        private int toTrial;
+        private final RunningStats thresholds = new RunningStats();
+        private double[] rawThresholds = new double[0];
+    }
+
+    // runs trials [fromTrial, toTrial) of the run on an n-by-n grid with the given seed, the same trials a
+    // PercolationStats with that seed runs, and keeps the raw thresholds too if keepRaw is set
+    private static Shard runShard(int n, long seed, int fromTrial, int toTrial, boolean keepRaw) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
+        }
+        if (fromTrial < 0 || toTrial <= fromTrial) {
+            throw new IllegalArgumentException("trial range must be non-empty and start at 0 or later, [" + fromTrial + ", " + toTrial + ") is not valid");
+        }
+        Shard shard = new Shard();
+        shard.n = n;
+        shard.seed = seed;
+        shard.fromTrial = fromTrial;
+        shard.toTrial = toTrial;
+        if (keepRaw) {
+            shard.rawThresholds = new double[toTrial - fromTrial];
+        }
+        Percolation percolation = new Percolation(n);
+        int[] sites = new int[percolation.sites()];
+        for (int trial = fromTrial; trial < toTrial; trial++) {
+            percolation.reset();
+            double threshold = (1.0 * PercolationStats.openUntilPercolates(percolation, sites, seed, trial)) / sites.length;
+            shard.thresholds.add(threshold);
+            if (keepRaw) {
+                shard.rawThresholds[trial - fromTrial] = threshold;
+            }
+        }
+        return shard;
+    }
+
+    // writes the shard to a temporary file next to file and moves it into place, so a run stopped while writing
+    // never leaves a truncated shard under the final name
+    private static void write(Shard shard, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(SHARD_MAGIC);
+            data.writeInt(SHARD_VERSION);
+            data.writeInt(shard.n);
+            data.writeLong(shard.seed);
+            data.writeInt(shard.fromTrial);
+            data.writeInt(shard.toTrial);
+            RunningStats thresholds = shard.thresholds.snapshot();
+            data.writeLong(thresholds.count());
+            data.writeDouble(thresholds.mean());
+            data.writeDouble(thresholds.m2());
+            data.writeDouble(thresholds.min());
+            data.writeDouble(thresholds.max());
+            data.writeInt(shard.rawThresholds.length);
+            for (double threshold : shard.rawThresholds) {
+                data.writeDouble(threshold);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // reads a shard written by write, checking that its counts agree with its trial range and that nothing is
+    // missing or left over
+    private static Shard read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != SHARD_MAGIC || data.readInt() != SHARD_VERSION) {
+                throw new IllegalArgumentException(file + " is not a shard file");
+            }
+            Shard shard = new Shard();
+            shard.n = data.readInt();
+            shard.seed = data.readLong();
+            shard.fromTrial = data.readInt();
+            shard.toTrial = data.readInt();
+            if (shard.n <= 0 || shard.fromTrial < 0 || shard.toTrial <= shard.fromTrial) {
+                throw new IllegalArgumentException(file + " has an invalid grid size or trial range");
+            }
+            long count = data.readLong();
+            double mean = data.readDouble();
+            double m2 = data.readDouble();
+            double min = data.readDouble();
+            double max = data.readDouble();
+            if (count != shard.toTrial - shard.fromTrial) {
+                throw new IllegalArgumentException(file + " has " + count + " thresholds for trials [" + shard.fromTrial
+                    + ", " + shard.toTrial + ")");
+            }
+            if (!(0 <= min && min <= mean && mean <= max && max <= 1 && m2 >= 0)) {
+                throw new IllegalArgumentException(file + " has invalid threshold statistics");
+            }
+            shard.thresholds.merge(count, mean, m2, min, max);
+            int rawLength = data.readInt();
+            if (rawLength != 0 && rawLength != count) {
+                throw new IllegalArgumentException(file + " has " + rawLength + " raw thresholds, expected 0 or " + count);
+            }
+            shard.rawThresholds = new double[rawLength];
+            for (int i = 0; i < shard.rawThresholds.length; i++) {
+                shard.rawThresholds[i] = data.readDouble();
+            }
+            if (data.read() != -1) {
+                throw new IllegalArgumentException(file + " has trailing bytes after the shard");
+            }
+            return shard;
+        }
+        catch (EOFException e) {
+            throw new IllegalArgumentException(file + " is truncated", e);
+        }
+    }
+
+    // merges shard files of one run; all shards must share n and seed and cover disjoint trial ranges
+    private static PercolationStats merge(Path[] files) throws IOException {
+        Shard[] shards = new Shard[files.length];
+        for (int i = 0; i < files.length; i++) {
+            shards[i] = read(files[i]);
+            if (shards[i].n != shards[0].n || shards[i].seed != shards[0].seed) {
+                throw new IllegalArgumentException(files[i] + " belongs to a different run than " + files[0]);
+            }
+        }
+        Arrays.sort(shards, (a, b) -> Integer.compare(a.fromTrial, b.fromTrial));
+        RunningStats thresholds = new RunningStats();
+        for (int i = 0; i < shards.length; i++) {
+            if (i > 0 && shards[i].fromTrial < shards[i - 1].toTrial) {
+                throw new IllegalArgumentException("shards overlap at trial " + shards[i].fromTrial);
+            }
+            thresholds.merge(shards[i].thresholds);
+        }
+        return new PercolationStats(thresholds, shards[0].seed);
+    }
+
+    // shard n seed fromTrial toTrial file [raw]: runs a trial range and writes its summary to file
+    // merge file...: merges shard files and prints the same results as PercolationStats
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 6 && args[0].equals("shard")) {
+            int n = Integer.parseInt(args[1]);
+            long seed = Long.parseLong(args[2]);
+            int fromTrial = Integer.parseInt(args[3]);
+            int toTrial = Integer.parseInt(args[4]);
+            boolean keepRaw = args.length > 6 && args[6].equals("raw");
+            write(runShard(n, seed, fromTrial, toTrial, keepRaw), Paths.get(args[5]));
+        }
+        else if (args.length >= 2 && args[0].equals("merge")) {
+            Path[] files = new Path[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                files[i - 1] = Paths.get(args[i]);
+            }
+            merge(files).print();
+        }
+        else {
+            StdOut.println("usage: PercolationShards shard n seed fromTrial toTrial file [raw]");
+            StdOut.println("       PercolationShards merge file...");
+        }
+    }
+}
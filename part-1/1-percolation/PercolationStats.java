@@ -1,76 +1,397 @@
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class PercolationStats {
     private static final double CONFIDENCE_95 = 1.96;
-    private final int trials;
-    private final double [] percolationThresholds;
-    private double mean = Double.NaN;
-    private double stddev = Double.NaN;
-    private double confidenceLo = Double.NaN;
-    private double confidenceHi = Double.NaN;
+    private static final int MAX_TRIAL_CHUNKS = 64;
+    private static final int MIN_ADAPTIVE_BATCH = 32;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // thresholds of every chunk, merged in chunk order so results are the same bits whatever order chunks finish in
+    private final RunningStats percolationThresholds;
+    // caller's accumulator fed as chunks finish, for progress; null if there is none
+    private final RunningStats progress;
+    private final long seed;
+    // sees every step of every trial; null if there is none
+    private final TrialObserver observer;
+    // counters of this run, also added to PercolationMetrics.global(); only updated when metrics are enabled
+    private final PercolationMetrics metrics = new PercolationMetrics(PercolationMetrics.global());
 
     // perform independent trials on an n-by-n grid
     public PercolationStats(int n, int trials) {
+        this(n, trials, UnionFindEngine.PATH_HALVING);
+    }
+
+    // perform independent trials on an n-by-n grid using the given union-find engine
+    public PercolationStats(int n, int trials, UnionFindEngine engine) {
+        this(n, trials, engine, StdRandom.uniform(Long.MAX_VALUE));
+    }
+
+    // perform independent trials on an n-by-n grid, deriving the random stream of every trial from seed
+    public PercolationStats(int n, int trials, long seed) {
+        this(n, trials, UnionFindEngine.PATH_HALVING, seed);
+    }
+
+    // perform independent trials on an n-by-n grid using the given union-find engine,
+    // deriving the random stream of every trial from seed
+    public PercolationStats(int n, int trials, UnionFindEngine engine, long seed) {
+        validate(n, trials, engine);
+        percolationThresholds = new RunningStats();
+        progress = null;
+        this.seed = seed;
+        observer = null;
+        runTrialChunks(() -> new Percolation(n, engine), 0, trials, null);
+    }
+
+    // perform independent trials on an n-by-n grid using the given union-find engine on the calling thread, calling
+    // observer after every site opened, in trial order; trials still stop when the system percolates
+    public PercolationStats(int n, int trials, UnionFindEngine engine, long seed, TrialObserver observer) {
+        validate(n, trials, engine);
+        if (observer == null) {
+            throw new IllegalArgumentException("observer cannot be null");
+        }
+        percolationThresholds = new RunningStats();
+        progress = null;
+        this.seed = seed;
+        this.observer = observer;
+        runTrialChunks(() -> new Percolation(n, engine), 0, trials, null);
+    }
+
+    // perform independent trials on an n-by-n grid in parallel on the given executor;
+    // results only depend on n, trials and seed, not on the number of threads
+    public PercolationStats(int n, int trials, long seed, ExecutorService executor) {
+        this(n, trials, UnionFindEngine.PATH_HALVING, seed, executor);
+    }
+
+    // perform independent trials on an n-by-n grid in parallel on the given executor using the given union-find engine
+    public PercolationStats(int n, int trials, UnionFindEngine engine, long seed, ExecutorService executor) {
+        this(n, trials, engine, seed, executor, new RunningStats());
+    }
+
+    // perform independent trials on an n-by-n grid in parallel on the given executor, also accumulating thresholds
+    // into results, which is updated as chunks of trials complete and can be read by other threads meanwhile;
+    // results sees chunks in completion order, so its last bits may differ from mean and stddev, which do not
+    public PercolationStats(int n, int trials, UnionFindEngine engine, long seed, ExecutorService executor, RunningStats results) {
+        validate(n, trials, engine);
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        if (results == null) {
+            throw new IllegalArgumentException("results cannot be null");
+        }
+        percolationThresholds = new RunningStats();
+        progress = results;
+        this.seed = seed;
+        observer = null;
+        runTrialChunks(() -> new Percolation(n, engine), 0, trials, executor);
+    }
+
+    // perform independent trials on the given lattice using the given union-find engine,
+    // in parallel on the executor, or on the calling thread if executor is null
+    public PercolationStats(Lattice lattice, int trials, UnionFindEngine engine, long seed, ExecutorService executor) {
+        if (lattice == null) {
+            throw new IllegalArgumentException("lattice cannot be null");
+        }
+        validate(trials, engine);
+        percolationThresholds = new RunningStats();
+        progress = null;
+        this.seed = seed;
+        observer = null;
+        runTrialChunks(() -> new LatticePercolation(lattice, engine), 0, trials, executor);
+    }
+
+    // keeps running trials on an n-by-n grid until the 95% confidence interval is at most width wide, or until
+    // maxTrials trials have been run or maxMillis milliseconds have elapsed, whichever comes first;
+    // trials run on the executor, or on the calling thread if executor is null, and trials() reports how many were needed
+    public static PercolationStats untilConfidenceWidth(int n, UnionFindEngine engine, double width, int maxTrials,
+                                                        long maxMillis, long seed, ExecutorService executor) {
+        validate(n, maxTrials, engine);
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("width must be greater than 0, " + width + " is not valid");
+        }
+        if (maxMillis <= 0) {
+            throw new IllegalArgumentException("maxMillis must be greater than 0, " + maxMillis + " is not valid");
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        PercolationStats percolationStats = new PercolationStats(new RunningStats(), seed);
+        int batch = Math.min(MIN_ADAPTIVE_BATCH, maxTrials);
+        int trials = 0;
+        while (true) {
+            percolationStats.runTrialChunks(() -> new Percolation(n, engine), trials, batch, executor);
+            trials += batch;
+            double currentWidth = 2 * confidenceHalfWidth(percolationStats.percolationThresholds.snapshot());
+            long now = System.nanoTime();
+            if (currentWidth <= width || trials >= maxTrials || now - deadline >= 0) {
+                return percolationStats;
+            }
+            // the interval shrinks with the square root of the number of trials, so estimate the trials still needed,
+            // growing by at most a factor of two per batch to keep the overshoot bounded
+            double ratio = currentWidth / width;
+            long needed = (long) Math.ceil(trials * ratio * ratio) - trials;
+            batch = (int) Math.max(MIN_ADAPTIVE_BATCH, Math.min(needed, trials));
+            batch = Math.min(batch, maxTrials - trials);
+            // the deadline is only checked between batches, so the next batch must fit in the time left
+            // at the wall-clock time per trial measured so far
+            double nanosPerTrial = (1.0 * (now - start)) / trials;
+            long trialsLeft = (long) ((deadline - now) / nanosPerTrial);
+            batch = (int) Math.max(1, Math.min(batch, trialsLeft));
+        }
+    }
+
+    // creates the results holder for an adaptive run, or for results merged from shards
+    PercolationStats(RunningStats results, long seed) {
+        percolationThresholds = results;
+        progress = null;
+        this.seed = seed;
+        observer = null;
+    }
+
+    // seed of the stream of trial (trial, 0-based) of a run with the given seed: the SplitMix64 mix of the
+    // trial's position in a golden-ratio sequence from seed, so trials are independent and can be replayed alone
+    public static long trialSeed(long seed, int trial) {
+        if (trial < 0) {
+            throw new IllegalArgumentException("trial must be greater or equal than 0, " + trial + " is not valid");
+        }
+        long z = seed + (trial + 1L) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // re-runs trial (0-based) of a run on an n-by-n grid with the given seed and returns its percolation threshold
+    public static double replayTrial(int n, long seed, int trial) {
+        validate(n, 1, UnionFindEngine.PATH_HALVING);
+        Percolation percolation = new Percolation(n);
+        return (1.0 * openUntilPercolates(percolation, new int[percolation.sites()], seed, trial)) / percolation.sites();
+    }
+
+    // re-runs trial (0-based) of a run on the given lattice with the given seed and returns its percolation threshold
+    public static double replayTrial(Lattice lattice, long seed, int trial) {
+        if (lattice == null) {
+            throw new IllegalArgumentException("lattice cannot be null");
+        }
+        LatticePercolation percolation = new LatticePercolation(lattice);
+        return (1.0 * openUntilPercolates(percolation, new int[percolation.sites()], seed, trial)) / percolation.sites();
+    }
+
+    // validates input: n, trials and engine
+    private static void validate(int n, int trials, UnionFindEngine engine) {
         if (n <= 0) {
             throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
         }
+        validate(trials, engine);
+    }
+
+    // validates input: trials and engine
+    private static void validate(int trials, UnionFindEngine engine) {
         if (trials <= 0) {
             throw new IllegalArgumentException("trials must be greater than 0, " + trials + " is not valid");
         }
-        this.trials = trials;
-        percolationThresholds = new double[trials];
-        for (int trial = 0; trial < trials; trial++) {
-            Percolation percolation = new Percolation(n);
-            while (!percolation.percolates()) {
-                int row = StdRandom.uniform(1, n + 1);
-                int col = StdRandom.uniform(1, n + 1);
-                percolation.open(row, col);
+        if (engine == null) {
+            throw new IllegalArgumentException("engine cannot be null");
+        }
+    }
+
+    // runs trials [firstTrial, firstTrial + trials) split into a fixed number of chunks, on the executor, each chunk
+    // with its own system created by models, or on the calling thread if executor is null, reusing one system and
+    // site array for every chunk; every trial draws from its own stream derived from the seed, so results do not
+    // depend on the chunks or on the order they run in
+    private void runTrialChunks(Supplier<PercolationModel> models, int firstTrial, int trials, ExecutorService executor) {
+        int chunks = Math.min(trials, MAX_TRIAL_CHUNKS);
+        PercolationModel sequentialModel = executor == null ? models.get() : null;
+        int[] sequentialSites = executor == null ? new int[sequentialModel.sites()] : null;
+        // each chunk fills its own slot; Future.get makes the slots visible to this thread
+        final RunningStats[] chunkThresholds = new RunningStats[chunks];
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int index = chunk;
+            final int fromTrial = firstTrial + (int) ((long) trials * chunk / chunks);
+            final int toTrial = firstTrial + (int) ((long) trials * (chunk + 1) / chunks);
+            if (executor == null) {
+                chunkThresholds[index] = runTrials(sequentialModel, sequentialSites, fromTrial, toTrial);
+            }
+            else {
+                tasks.add(() -> {
+                    PercolationModel percolation = models.get();
+                    chunkThresholds[index] = runTrials(percolation, new int[percolation.sites()], fromTrial, toTrial);
+                    return null;
+                });
+            }
+        }
+        if (executor != null) {
+            runAll(executor, tasks);
+        }
+        for (RunningStats thresholds : chunkThresholds) {
+            percolationThresholds.merge(thresholds);
+        }
+    }
+
+    // runs the tasks on the executor and waits for all of them
+    private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while running trials", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("trial failed", e.getCause());
+        }
+    }
+
+    // runs trials [fromTrial, toTrial) on the given system and site array, resetting the system before each one,
+    // and returns their thresholds, also merging them into the caller's progress accumulator in one step
+    private RunningStats runTrials(PercolationModel percolation, int[] sites, int fromTrial, int toTrial) {
+        RunningStats chunkThresholds = new RunningStats();
+        for (int trial = fromTrial; trial < toTrial; trial++) {
+            percolation.reset();
+            chunkThresholds.add((1.0 * openUntilPercolates(percolation, sites, seed, trial, metrics, observer)) / sites.length);
+            if (PercolationMetrics.ENABLED) {
+                percolation.addMetricsTo(metrics);
+            }
+        }
+        if (progress != null) {
+            progress.merge(chunkThresholds);
+        }
+        return chunkThresholds;
+    }
+
+    // opens sites of a blocked system in the order of a Fisher-Yates shuffle of the site indices, generated one
+    // swap at a time from the stream of the given trial, until the system percolates, and returns the number of
+    // sites opened; every step opens a new site, so no draws are wasted on open sites
+    static int openUntilPercolates(PercolationModel percolation, int[] sites, long seed, int trial) {
+        return openUntilPercolates(percolation, sites, seed, trial, null, null);
+    }
+
+    // same as above, also adding the trial's time and the time spent in percolates checks to metrics, if it is not null
+    // and metrics are enabled, and calling observer after every site opened, if it is not null
+    private static int openUntilPercolates(PercolationModel percolation, int[] sites, long seed, int trial,
+                                           PercolationMetrics metrics, TrialObserver observer) {
+        boolean timed = PercolationMetrics.ENABLED && metrics != null;
+        long start = timed ? System.nanoTime() : 0;
+        long percolatesCalls = 0;
+        long percolatesNanos = 0;
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(trialSeed(seed, trial));
+        int opened = 0;
+        while (true) {
+            boolean percolates;
+            if (timed) {
+                long checkStart = System.nanoTime();
+                percolates = percolation.percolates();
+                percolatesNanos += System.nanoTime() - checkStart;
+                percolatesCalls++;
+            }
+            else {
+                percolates = percolation.percolates();
             }
-            percolationThresholds[trial] = (1.0 * percolation.numberOfOpenSites()) / ((1.0 * n) * (1.0 * n));
+            if (percolates) {
+                break;
+            }
+            int swapIndex = random.nextInt(opened, sites.length);
+            int site = sites[swapIndex];
+            sites[swapIndex] = sites[opened];
+            sites[opened] = site;
+            percolation.openSite(site);
+            opened++;
+            if (observer != null) {
+                observer.opened(trial, percolation);
+            }
+        }
+        if (timed) {
+            metrics.addTrial(System.nanoTime() - start, percolatesCalls, percolatesNanos);
         }
+        return opened;
     }
 
     // sample mean of percolation threshold
     public double mean() {
-        if (Double.isNaN(mean)) {
-            mean = StdStats.mean(percolationThresholds);
-        }
-        return mean;
+        return percolationThresholds.mean();
     }
 
     // sample standard deviation of percolation threshold
     public double stddev() {
-        if (Double.isNaN(stddev)) {
-            stddev = StdStats.stddev(percolationThresholds);
-        }
-        return stddev;
+        return percolationThresholds.stddev();
     }
 
     // low endpoint of 95% confidence interval
     public double confidenceLo() {
-        if (Double.isNaN(confidenceLo)) {
-            confidenceLo = mean() - ((CONFIDENCE_95 * stddev()) / Math.sqrt(trials));
-        }
-        return confidenceLo;
+        RunningStats thresholds = percolationThresholds.snapshot();
+        return thresholds.mean() - confidenceHalfWidth(thresholds);
     }
 
     // high endpoint of 95% confidence interval
     public double confidenceHi() {
-        if (Double.isNaN(confidenceHi)) {
-            confidenceHi = mean() + ((CONFIDENCE_95 * stddev()) / Math.sqrt(trials));
-        }
-        return confidenceHi;
+        RunningStats thresholds = percolationThresholds.snapshot();
+        return thresholds.mean() + confidenceHalfWidth(thresholds);
+    }
+
+    // number of trials run
+    public long trials() {
+        return percolationThresholds.count();
+    }
+
+    // seed the trial streams were derived from, see replayTrial
+    public long seed() {
+        return seed;
+    }
+
+    // hot-path counts and trial timings of this run; all zero unless the JVM runs with -Dpercolation.metrics=true
+    public PercolationMetrics.Snapshot metrics() {
+        return metrics.snapshot();
+    }
+
+    // half width of the 95% confidence interval of the given thresholds
+    private static double confidenceHalfWidth(RunningStats thresholds) {
+        return (CONFIDENCE_95 * thresholds.stddev()) / Math.sqrt(thresholds.count());
+    }
+
+    // prints mean, standard deviation and 95% confidence interval, as the test client does
+    void print() {
+        StdOut.printf("mean = %f\n", mean());
+        StdOut.printf("stddev = %f\n", stddev());
+        StdOut.printf("95%% confidence interval = [%f, %f]\n", confidenceLo(), confidenceHi());
     }
 
     // test client (see below)
     public static void main(String[] args) {
         int n = Integer.parseInt(args[0]);
         int t = Integer.parseInt(args[1]);
-        PercolationStats percolationStats = new PercolationStats(n, t);
-        StdOut.printf("mean = %f\n", percolationStats.mean());
-        StdOut.printf("stddev = %f\n", percolationStats.stddev());
-        StdOut.printf("95%% confidence interval = [%f, %f]\n", percolationStats.confidenceLo(), percolationStats.confidenceHi());
+        UnionFindEngine engine = args.length > 2 ? UnionFindEngine.valueOf(args[2]) : UnionFindEngine.PATH_HALVING;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        PercolationMetrics.registerMBean();
+        PercolationStats percolationStats;
+        if (threads > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                percolationStats = new PercolationStats(n, t, engine, StdRandom.uniform(Long.MAX_VALUE), executor);
+            }
+            finally {
+                executor.shutdown();
+            }
+        }
+        else {
+            percolationStats = new PercolationStats(n, t, engine);
+        }
+        percolationStats.print();
+        if (PercolationMetrics.ENABLED) {
+            StdOut.println(percolationStats.metrics());
+        }
     }
 }
@@ -0,0 +1,95 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.Arrays;
+
+public class PercolationSweep {
+    private final double[] probabilities;
+    private final int trials;
+    // percolated[i] is the number of trials that percolate with probabilities[i] * n * n open sites
+    private final int[] percolated;
+
+    // perform independent trials on an n-by-n grid and estimate, for every site-open probability p in probabilities,
+    // the probability that the system percolates; probabilities must be in [0, 1] and strictly increasing.
+    // each trial opens sites in one random order until the system percolates, and a system with the first
+    // round(p * n * n) sites of that order open percolates exactly when that is at least the number opened,
+    // so one trial answers every p at the cost of a single pass; trials use the same streams as PercolationStats
+    // trials with the same seed
+    public PercolationSweep(int n, int trials, double[] probabilities, long seed) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
+        }
+        if (trials <= 0) {
+            throw new IllegalArgumentException("trials must be greater than 0, " + trials + " is not valid");
+        }
+        if (probabilities == null || probabilities.length == 0) {
+            throw new IllegalArgumentException("probabilities cannot be null or empty");
+        }
+        for (int i = 0; i < probabilities.length; i++) {
+            if (!(probabilities[i] >= 0 && probabilities[i] <= 1)) {
+                throw new IllegalArgumentException("probabilities must be in [0, 1], " + probabilities[i] + " is not valid");
+            }
+            if (i > 0 && probabilities[i] <= probabilities[i - 1]) {
+                throw new IllegalArgumentException("probabilities must be strictly increasing, " + probabilities[i] + " is not valid");
+            }
+        }
+        this.probabilities = probabilities.clone();
+        this.trials = trials;
+        int sites = n * n;
+        int[] openSitesAt = new int[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) {
+            openSitesAt[i] = (int) Math.round(probabilities[i] * sites);
+        }
+        // count trials by the first probability at which they percolate, then accumulate
+        percolated = new int[probabilities.length];
+        Percolation percolation = new Percolation(n);
+        int[] order = new int[sites];
+        for (int trial = 0; trial < trials; trial++) {
+            percolation.reset();
+            int threshold = PercolationStats.openUntilPercolates(percolation, order, seed, trial);
+            int first = Arrays.binarySearch(openSitesAt, threshold);
+            if (first < 0) {
+                first = -first - 1;
+            }
+            else {
+                while (first > 0 && openSitesAt[first - 1] == threshold) {
+                    first--;
+                }
+            }
+            if (first < percolated.length) {
+                percolated[first]++;
+            }
+        }
+        for (int i = 1; i < percolated.length; i++) {
+            percolated[i] += percolated[i - 1];
+        }
+    }
+
+    // the site-open probabilities of the sweep
+    public double[] probabilities() {
+        return probabilities.clone();
+    }
+
+    // estimated probability that the system percolates at probabilities()[i]
+    public double percolationProbability(int i) {
+        if (i < 0 || i >= probabilities.length) {
+            throw new IllegalArgumentException("i must be greater or equal than 0 and less than " + probabilities.length);
+        }
+        return (1.0 * percolated[i]) / trials;
+    }
+
+    // test client (optional)
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int t = Integer.parseInt(args[1]);
+        int steps = Integer.parseInt(args[2]);
+        double[] probabilities = new double[steps + 1];
+        for (int i = 0; i <= steps; i++) {
+            probabilities[i] = (1.0 * i) / steps;
+        }
+        PercolationSweep sweep = new PercolationSweep(n, t, probabilities, StdRandom.uniform(Long.MAX_VALUE));
+        for (int i = 0; i <= steps; i++) {
+            StdOut.printf("P(%f) = %f\n", probabilities[i], sweep.percolationProbability(i));
+        }
+    }
+}
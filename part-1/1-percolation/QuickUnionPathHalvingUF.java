@@ -0,0 +1,88 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+public class QuickUnionPathHalvingUF implements UnionFind {
+    // parent[i] is the parent of i, or minus the size of the set if i is a root
+    private final int[] parent;
+    // parent links followed by find since the last reset, only counted when PercolationMetrics are enabled; a plain
+    // field, so the count is only exact when one thread at a time uses the instance
+    private long findSteps;
+
+    // creates n elements, each one in its own set
+    public QuickUnionPathHalvingUF(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
+        }
+        parent = new int[n];
+        reset();
+    }
+
+    // returns the root of element p, making every other node on the path point to its grandparent;
+    // p is not validated, callers are expected to pass indices in [0, n)
+    public int find(int p) {
+        while (parent[p] >= 0) {
+            if (PercolationMetrics.ENABLED) {
+                findSteps++;
+            }
+            int grandparent = parent[parent[p]];
+            if (grandparent < 0) {
+                return parent[p];
+            }
+            parent[p] = grandparent;
+            p = grandparent;
+        }
+        return p;
+    }
+
+    // merges the sets of p and q, linking the root of the smaller set to the root of the larger one;
+    // returns false if they were in the same set already
+    public boolean union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return false;
+        }
+        // sizes are stored negated, so the larger set has the smaller value
+        if (parent[rootP] > parent[rootQ]) {
+            parent[rootQ] += parent[rootP];
+            parent[rootP] = rootQ;
+        }
+        else {
+            parent[rootP] += parent[rootQ];
+            parent[rootQ] = rootP;
+        }
+        return true;
+    }
+
+    // returns the number of elements in the set containing p
+    public int size(int p) {
+        return -parent[find(p)];
+    }
+
+    // puts every element back in its own set
+    public void reset() {
+        Arrays.fill(parent, -1);
+        findSteps = 0;
+    }
+
+    // returns the number of parent links followed by find since the last reset, when PercolationMetrics are enabled;
+    // only exact if a single thread at a time has used the instance
+    public long findSteps() {
+        return findSteps;
+    }
+
+    // test client (optional)
+    public static void main(String[] args) {
+        QuickUnionPathHalvingUF uf = new QuickUnionPathHalvingUF(10);
+        uf.union(4, 3);
+        uf.union(3, 8);
+        uf.union(6, 5);
+        uf.union(9, 4);
+        uf.union(2, 1);
+        StdOut.printf("8 and 9 connected? %b\n", uf.find(8) == uf.find(9));
+        StdOut.printf("5 and 7 connected? %b\n", uf.find(5) == uf.find(7));
+        uf.reset();
+        StdOut.printf("8 and 9 connected after reset? %b\n", uf.find(8) == uf.find(9));
+    }
+}
@@ -0,0 +1,111 @@
+import edu.princeton.cs.algs4.StdOut;
+
+public class RunningStats {
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // creates an empty accumulator
+    public RunningStats() {
+        // Do nothing
+    }
+
+    // adds a value, updating mean and sum of squared deviations with Welford's method
+    public synchronized void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // merges the values accumulated by other into this accumulator (Chan et al. pairwise update)
+    public void merge(RunningStats other) {
+        if (other == null) {
+            throw new IllegalArgumentException("other cannot be null");
+        }
+        RunningStats copy = other.snapshot();
+        merge(copy.count, copy.mean, copy.m2, copy.min, copy.max);
+    }
+
+    // merges a summary of count values with the given mean, sum of squared deviations, min and max
+    public synchronized void merge(long otherCount, double otherMean, double otherM2, double otherMin, double otherMax) {
+        if (otherCount < 0) {
+            throw new IllegalArgumentException("count must be greater or equal than 0, " + otherCount + " is not valid");
+        }
+        if (otherCount == 0) {
+            return;
+        }
+        long total = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / total;
+        m2 += otherM2 + delta * delta * ((double) count * otherCount / total);
+        count = total;
+        min = Math.min(min, otherMin);
+        max = Math.max(max, otherMax);
+    }
+
+    // returns a consistent copy, safe to read while other threads keep adding values
+    public synchronized RunningStats snapshot() {
+        RunningStats copy = new RunningStats();
+        copy.count = count;
+        copy.mean = mean;
+        copy.m2 = m2;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    // number of values added
+    public synchronized long count() {
+        return count;
+    }
+
+    // sample mean, NaN if empty
+    public synchronized double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    // sum of squared deviations from the mean
+    public synchronized double m2() {
+        return m2;
+    }
+
+    // sample variance, NaN if there are less than two values
+    public synchronized double variance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    // sample standard deviation, NaN if there are less than two values
+    public double stddev() {
+        return Math.sqrt(variance());
+    }
+
+    // smallest value added, NaN if empty
+    public synchronized double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    // largest value added, NaN if empty
+    public synchronized double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    // test client (optional)
+    public static void main(String[] args) {
+        RunningStats left = new RunningStats();
+        RunningStats right = new RunningStats();
+        for (int i = 1; i <= 4; i++) {
+            left.add(i);
+        }
+        for (int i = 5; i <= 10; i++) {
+            right.add(i);
+        }
+        left.merge(right);
+        StdOut.printf("count = %d, mean = %f, stddev = %f, min = %f, max = %f\n",
+            left.count(), left.mean(), left.stddev(), left.min(), left.max());
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+
+// open sites and their clusters, shared by Percolation and LatticePercolation: an open-site bitset, a union-find and
+// per-root bitsets flagging clusters that touch the top or the bottom, used instead of virtual sites so isFull has no
+// backwash and percolates is O(1); callers only enumerate neighbors, opening a site as
+// open, then connect for every neighbor, then finish with the connections collected
+final class SiteClusters {
+    static final int CONNECTED_TOP = 1;
+    static final int CONNECTED_BOTTOM = 2;
+    private final long [] openBits;
+    private final long [] topConnectedRoots;
+    private final long [] bottomConnectedRoots;
+    private final UnionFind uf;
+    private int openSites;
+    private boolean percolates;
+    private int openClusters;
+    private int largestClusterSize;
+    private int spanningClusterSize;
+    // hot-path counters since the last reset, only updated when PercolationMetrics are enabled;
+    // finds counts every root lookup in the union-find, including the two inside union and the one inside size
+    private long openCalls;
+    private long noOpOpens;
+    private long unions;
+    private long finds;
+
+    // creates the given number of sites, all blocked, backed by the given union-find engine
+    SiteClusters(int sites, UnionFindEngine engine) {
+        openBits = Percolation.newBitset(sites);
+        topConnectedRoots = Percolation.newBitset(sites);
+        bottomConnectedRoots = Percolation.newBitset(sites);
+        uf = engine.create(sites);
+    }
+
+    boolean isOpen(int site) {
+        return Percolation.isSet(openBits, site);
+    }
+
+    boolean isFull(int site) {
+        if (!isOpen(site)) {
+            return false;
+        }
+        if (PercolationMetrics.ENABLED) {
+            finds++;
+        }
+        return Percolation.isSet(topConnectedRoots, uf.find(site));
+    }
+
+    // marks the site open as a new cluster of its own; returns false, changing nothing, if it was open already
+    boolean open(int site) {
+        if (PercolationMetrics.ENABLED) {
+            openCalls++;
+        }
+        if (isOpen(site)) {
+            if (PercolationMetrics.ENABLED) {
+                noOpOpens++;
+            }
+            return false;
+        }
+        Percolation.set(openBits, site);
+        // the new site starts as its own cluster, every union with a different neighbor cluster removes one
+        openClusters++;
+        return true;
+    }
+
+    // connects the site with its neighbor if the neighbor is open, and returns whether the neighbor's cluster
+    // touched the top or bottom, as CONNECTED_TOP and CONNECTED_BOTTOM bits
+    int connect(int site, int neighbor) {
+        if (!isOpen(neighbor)) {
+            return 0;
+        }
+        int neighborRoot = uf.find(neighbor);
+        int connections = 0;
+        if (Percolation.isSet(topConnectedRoots, neighborRoot)) {
+            connections |= CONNECTED_TOP;
+        }
+        if (Percolation.isSet(bottomConnectedRoots, neighborRoot)) {
+            connections |= CONNECTED_BOTTOM;
+        }
+        // union with the root already found, so merging costs one full find of the site instead of three more finds
+        boolean merged = uf.union(site, neighborRoot);
+        if (PercolationMetrics.ENABLED) {
+            // the find of the neighbor above and the two inside union
+            finds += 3;
+        }
+        if (merged) {
+            openClusters--;
+            if (PercolationMetrics.ENABLED) {
+                unions++;
+            }
+        }
+        return connections;
+    }
+
+    // flags the root of the site's merged cluster with the connections of the site and its neighbors,
+    // and updates the cluster statistics
+    void finish(int site, int connections) {
+        int root = uf.find(site);
+        if (PercolationMetrics.ENABLED) {
+            // the find above and the one inside size below
+            finds += 2;
+        }
+        if ((connections & CONNECTED_TOP) != 0) {
+            Percolation.set(topConnectedRoots, root);
+        }
+        if ((connections & CONNECTED_BOTTOM) != 0) {
+            Percolation.set(bottomConnectedRoots, root);
+        }
+        int clusterSize = uf.size(root);
+        if (clusterSize > largestClusterSize) {
+            largestClusterSize = clusterSize;
+        }
+        if (connections == (CONNECTED_TOP | CONNECTED_BOTTOM)) {
+            percolates = true;
+            if (clusterSize > spanningClusterSize) {
+                spanningClusterSize = clusterSize;
+            }
+        }
+        openSites++;
+    }
+
+    // blocks every site again without reallocating the arrays
+    void reset() {
+        Arrays.fill(openBits, 0L);
+        Arrays.fill(topConnectedRoots, 0L);
+        Arrays.fill(bottomConnectedRoots, 0L);
+        uf.reset();
+        openSites = 0;
+        percolates = false;
+        openClusters = 0;
+        largestClusterSize = 0;
+        spanningClusterSize = 0;
+        openCalls = 0;
+        noOpOpens = 0;
+        unions = 0;
+        finds = 0;
+    }
+
+    int numberOfOpenSites() {
+        return openSites;
+    }
+
+    int numberOfOpenClusters() {
+        return openClusters;
+    }
+
+    int largestClusterSize() {
+        return largestClusterSize;
+    }
+
+    int spanningClusterSize() {
+        return spanningClusterSize;
+    }
+
+    boolean percolates() {
+        return percolates;
+    }
+
+    PercolationMetrics.Snapshot metrics() {
+        return new PercolationMetrics.Snapshot(openCalls, noOpOpens, unions, finds, uf.findSteps(), 0, 0, 0, 0);
+    }
+
+    void addMetricsTo(PercolationMetrics metrics) {
+        metrics.addOpens(openCalls, noOpOpens, unions, finds, uf.findSteps());
+    }
+}
@@ -0,0 +1,55 @@
+public class SquareLattice implements Lattice {
+    private final int rows;
+    private final int cols;
+
+    // rows-by-cols square lattice of sites, indexed row-major like Percolation; runs the generic LatticePercolation
+    // path on the grid Percolation specializes, so the two can be checked against each other
+    public SquareLattice(int rows, int cols) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows must be greater than 0, " + rows + " is not valid");
+        }
+        if (cols <= 0) {
+            throw new IllegalArgumentException("cols must be greater than 0, " + cols + " is not valid");
+        }
+        if ((long) rows * cols >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("rows * cols must be less than " + Integer.MAX_VALUE + ", " + rows + " * " + cols + " is not valid");
+        }
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    public int sites() {
+        return rows * cols;
+    }
+
+    public int maxNeighbors() {
+        return 4;
+    }
+
+    public int neighbors(int site, int[] neighbors) {
+        int row = site / cols;
+        int col = site % cols;
+        int count = 0;
+        if (row > 0) {
+            neighbors[count++] = site - cols;
+        }
+        if (row < rows - 1) {
+            neighbors[count++] = site + cols;
+        }
+        if (col > 0) {
+            neighbors[count++] = site - 1;
+        }
+        if (col < cols - 1) {
+            neighbors[count++] = site + 1;
+        }
+        return count;
+    }
+
+    public boolean isTop(int site) {
+        return site < cols;
+    }
+
+    public boolean isBottom(int site) {
+        return site >= (rows - 1) * cols;
+    }
+}
@@ -0,0 +1,259 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TiledPercolation {
+    private final int n;
+    private final Tile[] tiles;
+    // union-find over the first and last row of every tile: tile t owns elements [t * 2n, (t + 1) * 2n);
+    // tiles use it concurrently, so its findSteps count is not exact and is not reported
+    private final QuickUnionPathHalvingUF boundaryUF;
+    private final long[] topConnectedRoots;
+    private final long openSites;
+    private final boolean percolates;
+
+    // horizontal band of rows, labeled on its own with a local union-find
+    private static final class Tile {
+        private final int index;
+        private final int firstRow;
+        private final int rows;
+        private final int n;
+        private final long[] openBits;
+        private final QuickUnionPathHalvingUF uf;
+        // (local root << 32 | boundary element) of every open site in the first and last row, sorted,
+        // so the boundary element of a local component can be found by binary search
+        private long[] boundaryRoots;
+        private long openSites;
+
+        Tile(int index, int firstRow, int rows, int n) {
+            this.index = index;
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.n = n;
+            openBits = Percolation.newBitset(rows * n);
+            uf = new QuickUnionPathHalvingUF(rows * n);
+        }
+
+        // opens each site with probability p and unions open neighbors inside the tile, then unions, in the
+        // boundary union-find, the tile's boundary elements that belong to the same local component;
+        // only touches this tile's arrays and boundary elements, so tiles can be labeled concurrently
+        void label(double p, SplittableRandom random, QuickUnionPathHalvingUF boundaryUF) {
+            int sites = rows * n;
+            for (int site = 0; site < sites; site++) {
+                if (random.nextDouble() < p) {
+                    Percolation.set(openBits, site);
+                    openSites++;
+                }
+            }
+            for (int site = 0; site < sites; site++) {
+                if (!Percolation.isSet(openBits, site)) {
+                    continue;
+                }
+                if (site % n < n - 1 && Percolation.isSet(openBits, site + 1)) {
+                    uf.union(site, site + 1);
+                }
+                if (site + n < sites && Percolation.isSet(openBits, site + n)) {
+                    uf.union(site, site + n);
+                }
+            }
+            long[] roots = new long[2 * n];
+            int count = 0;
+            for (int col = 0; col < n; col++) {
+                count = addBoundaryRoot(roots, count, col, boundaryElement(0, col));
+                count = addBoundaryRoot(roots, count, (rows - 1) * n + col, boundaryElement(rows - 1, col));
+            }
+            boundaryRoots = Arrays.copyOf(roots, count);
+            Arrays.sort(boundaryRoots);
+            for (int i = 1; i < boundaryRoots.length; i++) {
+                if ((boundaryRoots[i] >>> 32) == (boundaryRoots[i - 1] >>> 32)) {
+                    boundaryUF.union((int) boundaryRoots[i], (int) boundaryRoots[i - 1]);
+                }
+            }
+        }
+
+        private int addBoundaryRoot(long[] roots, int count, int site, int element) {
+            if (Percolation.isSet(openBits, site)) {
+                roots[count++] = ((long) uf.find(site) << 32) | element;
+            }
+            return count;
+        }
+
+        // boundary union-find element of the site at local row 0 or rows - 1
+        int boundaryElement(int localRow, int col) {
+            return index * 2 * n + (localRow == 0 ? 0 : n) + col;
+        }
+
+        // a boundary element of the local component of site, or -1 if the component does not reach the tile's boundary
+        int boundaryElementOf(int site) {
+            long key = (long) uf.find(site) << 32;
+            int i = Arrays.binarySearch(boundaryRoots, key);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            if (i < boundaryRoots.length && (boundaryRoots[i] >>> 32) == (key >>> 32)) {
+                return (int) boundaryRoots[i];
+            }
+            return -1;
+        }
+
+        boolean isOpen(int localRow, int col) {
+            return Percolation.isSet(openBits, localRow * n + col);
+        }
+    }
+
+    // samples an n-by-n grid where each site is open with probability p, splits it into horizontal tiles that are
+    // sampled and labeled concurrently on the executor, then merges only the rows where tiles meet; results are
+    // reproducible for a given seed and number of tiles
+    public TiledPercolation(int n, double p, long seed, int tileCount, ExecutorService executor) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0, " + n + " is not valid");
+        }
+        if (!(p >= 0 && p <= 1)) {
+            throw new IllegalArgumentException("p must be in [0, 1], " + p + " is not valid");
+        }
+        if (tileCount <= 0 || tileCount > n) {
+            throw new IllegalArgumentException("tileCount must be greater than 0 and less or equal than " + n + ", " + tileCount + " is not valid");
+        }
+        if ((long) ((n + tileCount - 1) / tileCount) * n >= Integer.MAX_VALUE || 2L * n * tileCount >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("tiles of " + n + " / " + tileCount + " rows are too large, use more tiles");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        this.n = n;
+        tiles = new Tile[tileCount];
+        boundaryUF = new QuickUnionPathHalvingUF(2 * n * tileCount);
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callable<Void>> tasks = new ArrayList<>(tileCount);
+        for (int t = 0; t < tileCount; t++) {
+            int firstRow = (int) ((long) n * t / tileCount);
+            int lastRow = (int) ((long) n * (t + 1) / tileCount);
+            final Tile tile = new Tile(t, firstRow, lastRow - firstRow, n);
+            final SplittableRandom tileRandom = random.split();
+            tiles[t] = tile;
+            tasks.add(() -> {
+                tile.label(p, tileRandom, boundaryUF);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while labeling tiles", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("tile labeling failed", e.getCause());
+        }
+        // merge the rows where consecutive tiles meet
+        long open = 0;
+        for (int t = 0; t < tileCount; t++) {
+            open += tiles[t].openSites;
+            if (t == 0) {
+                continue;
+            }
+            Tile above = tiles[t - 1];
+            Tile below = tiles[t];
+            for (int col = 0; col < n; col++) {
+                if (above.isOpen(above.rows - 1, col) && below.isOpen(0, col)) {
+                    boundaryUF.union(above.boundaryElement(above.rows - 1, col), below.boundaryElement(0, col));
+                }
+            }
+        }
+        openSites = open;
+        topConnectedRoots = Percolation.newBitset(2 * n * tileCount);
+        Tile top = tiles[0];
+        for (int col = 0; col < n; col++) {
+            if (top.isOpen(0, col)) {
+                Percolation.set(topConnectedRoots, boundaryUF.find(top.boundaryElement(0, col)));
+            }
+        }
+        Tile bottom = tiles[tileCount - 1];
+        boolean spans = false;
+        for (int col = 0; col < n && !spans; col++) {
+            if (bottom.isOpen(bottom.rows - 1, col)) {
+                spans = Percolation.isSet(topConnectedRoots, boundaryUF.find(bottom.boundaryElement(bottom.rows - 1, col)));
+            }
+        }
+        percolates = spans;
+    }
+
+    // validates input: row and col
+    private void validate(int row, int col) {
+        if (row < 1 || row > n) {
+            throw new IllegalArgumentException("row must be greater than 0 and less or equal than " + n);
+        }
+        if (col < 1 || col > n) {
+            throw new IllegalArgumentException("col must be greater than 0 and less or equal than " + n);
+        }
+    }
+
+    // returns the tile containing the 0-based row
+    private Tile tileOf(int row) {
+        int t = (int) (((long) row * tiles.length + tiles.length - 1) / n);
+        while (t > 0 && tiles[t].firstRow > row) {
+            t--;
+        }
+        while (t < tiles.length - 1 && tiles[t].firstRow + tiles[t].rows <= row) {
+            t++;
+        }
+        return tiles[t];
+    }
+
+    // is the site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+        Tile tile = tileOf(row - 1);
+        return tile.isOpen(row - 1 - tile.firstRow, col - 1);
+    }
+
+    // is the site (row, col) full?
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+        Tile tile = tileOf(row - 1);
+        int localRow = row - 1 - tile.firstRow;
+        if (!tile.isOpen(localRow, col - 1)) {
+            return false;
+        }
+        int element = tile.boundaryElementOf(localRow * n + col - 1);
+        return element >= 0 && Percolation.isSet(topConnectedRoots, boundaryUF.find(element));
+    }
+
+    // returns the number of open sites
+    public long numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // test client (optional)
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        double p = Double.parseDouble(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            TiledPercolation percolation = new TiledPercolation(n, p, StdRandom.uniform(Long.MAX_VALUE), Math.min(n, 4 * threads), executor);
+            StdOut.printf("Open sites = %d\n", percolation.numberOfOpenSites());
+            StdOut.printf("Does the system percolate? %b\n", percolation.percolates());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
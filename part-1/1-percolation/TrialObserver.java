@@ -0,0 +1,6 @@
+// sees every step of a PercolationStats trial, so per-step curves such as the largest cluster size or the number of
+// open clusters come out of the same pass that measures the threshold
+interface TrialObserver {
+    // called right after the trial (0-based) opened a site, with the system as it is now
+    void opened(int trial, PercolationModel percolation);
+}
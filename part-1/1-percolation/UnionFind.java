@@ -0,0 +1,20 @@
+public interface UnionFind {
+    // returns the canonical element (root) of the set containing element p
+    int find(int p);
+
+    // merges the set containing element p with the set containing element q;
+    // returns false if they were in the same set already
+    boolean union(int p, int q);
+
+    // returns the number of elements in the set containing element p
+    int size(int p);
+
+    // puts every element back in its own set
+    void reset();
+
+    // returns the number of parent links followed by find since the last reset, when PercolationMetrics are enabled;
+    // engines that cannot count them return 0
+    default long findSteps() {
+        return 0;
+    }
+}
@@ -0,0 +1,17 @@
+public enum UnionFindEngine {
+    // weighted quick-union with path halving and no bounds checks (default)
+    PATH_HALVING {
+        public UnionFind create(int n) {
+            return new QuickUnionPathHalvingUF(n);
+        }
+    },
+    // edu.princeton.cs.algs4.WeightedQuickUnionUF, kept for comparison
+    ALGS4_WEIGHTED {
+        public UnionFind create(int n) {
+            return new WeightedQuickUnionAdapterUF(n);
+        }
+    };
+
+    // creates a union-find of this engine with n elements
+    public abstract UnionFind create(int n);
+}
@@ -0,0 +1,43 @@
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+import java.util.Arrays;
+
+public class WeightedQuickUnionAdapterUF implements UnionFind {
+    private final int n;
+    private WeightedQuickUnionUF wquUF;
+    // WeightedQuickUnionUF keeps its set sizes private, so they are tracked again here, indexed by root
+    private final int[] size;
+
+    // creates n elements backed by the algs4 weighted quick-union implementation
+    public WeightedQuickUnionAdapterUF(int n) {
+        this.n = n;
+        wquUF = new WeightedQuickUnionUF(n);
+        size = new int[n];
+        Arrays.fill(size, 1);
+    }
+
+    public int find(int p) {
+        return wquUF.find(p);
+    }
+
+    public boolean union(int p, int q) {
+        int rootP = wquUF.find(p);
+        int rootQ = wquUF.find(q);
+        if (rootP == rootQ) {
+            return false;
+        }
+        wquUF.union(rootP, rootQ);
+        size[wquUF.find(rootP)] = size[rootP] + size[rootQ];
+        return true;
+    }
+
+    public int size(int p) {
+        return size[wquUF.find(p)];
+    }
+
+    // WeightedQuickUnionUF has no way to be cleared in place, so it is reallocated
+    public void reset() {
+        wquUF = new WeightedQuickUnionUF(n);
+        Arrays.fill(size, 1);
+    }
+}
@@ -0,0 +1,349 @@
+import edu.princeton.cs.algs4.StdOut;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// thread-safe deque with a fixed capacity, backed by a ring buffer allocated up front
+public class BoundedDeque<Item> implements Iterable<Item> {
+    private final Item[] items;
+    // position of the front item in items
+    private int head = 0;
+    private int size = 0;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private class BoundedDequeIterator implements Iterator<Item> {
+        private final Item[] iteratorItems;
+        private int i = 0;
+
+        // copies the items under the lock, so iterating never blocks other threads
+        public BoundedDequeIterator() {
+            lock.lock();
+            try {
+                iteratorItems = (Item[]) new Object[size];
+                for (int j = 0; j < size; j++) {
+                    iteratorItems[j] = items[position(j)];
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean hasNext() {
+            return i < iteratorItems.length;
+        }
+
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There are no more items");
+            }
+            return iteratorItems[i++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Operation not supported");
+        }
+    }
+
+    // construct an empty deque that holds at most capacity items
+    public BoundedDeque(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0, " + capacity + " is not valid");
+        }
+        items = (Item[]) new Object[capacity];
+    }
+
+    private static void validate(Object item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+    }
+
+    // position in items of the item at offset i from the front
+    private int position(int i) {
+        int position = head + i;
+        return position < items.length ? position : position - items.length;
+    }
+
+    // insert and extract helpers: callers hold the lock and have checked the deque is not full, or not empty
+
+    private void insertFirst(Item item) {
+        head = head == 0 ? items.length - 1 : head - 1;
+        items[head] = item;
+        size++;
+        notEmpty.signal();
+    }
+
+    private void insertLast(Item item) {
+        items[position(size)] = item;
+        size++;
+        notEmpty.signal();
+    }
+
+    private Item extractFirst() {
+        Item item = items[head];
+        items[head] = null;
+        head = position(1);
+        size--;
+        notFull.signal();
+        return item;
+    }
+
+    private Item extractLast() {
+        int last = position(size - 1);
+        Item item = items[last];
+        items[last] = null;
+        size--;
+        notFull.signal();
+        return item;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // return the maximum number of items on the deque
+    public int capacity() {
+        return items.length;
+    }
+
+    // add the item to the front if there is room; returns whether it was added
+    public boolean offerFirst(Item item) {
+        validate(item);
+        lock.lock();
+        try {
+            if (size == items.length) {
+                return false;
+            }
+            insertFirst(item);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // add the item to the back if there is room; returns whether it was added
+    public boolean offerLast(Item item) {
+        validate(item);
+        lock.lock();
+        try {
+            if (size == items.length) {
+                return false;
+            }
+            insertLast(item);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // add the item to the front
+    public void addFirst(Item item) {
+        if (!offerFirst(item)) {
+            throw new IllegalStateException("Deque is full");
+        }
+    }
+
+    // add the item to the back
+    public void addLast(Item item) {
+        if (!offerLast(item)) {
+            throw new IllegalStateException("Deque is full");
+        }
+    }
+
+    // add the item to the front, waiting for room if the deque is full
+    public void putFirst(Item item) throws InterruptedException {
+        validate(item);
+        lock.lockInterruptibly();
+        try {
+            while (size == items.length) {
+                notFull.await();
+            }
+            insertFirst(item);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // add the item to the back, waiting for room if the deque is full
+    public void putLast(Item item) throws InterruptedException {
+        validate(item);
+        lock.lockInterruptibly();
+        try {
+            while (size == items.length) {
+                notFull.await();
+            }
+            insertLast(item);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // remove and return the item from the front, or null if the deque is empty
+    public Item pollFirst() {
+        lock.lock();
+        try {
+            return size == 0 ? null : extractFirst();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // remove and return the item from the back, or null if the deque is empty
+    public Item pollLast() {
+        lock.lock();
+        try {
+            return size == 0 ? null : extractLast();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        return item;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        return item;
+    }
+
+    // remove and return the item from the front, waiting for one if the deque is empty
+    public Item takeFirst() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return extractFirst();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // remove and return the item from the back, waiting for one if the deque is empty
+    public Item takeLast() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return extractLast();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // moves up to max items from the front into array, starting at index 0, in front to back order, with one lock
+    // acquisition and one head update; returns the number of items moved, 0 if the deque is empty
+    public int drainTo(Item[] array, int max) {
+        if (array == null) {
+            throw new IllegalArgumentException("array cannot be null");
+        }
+        if (max < 0 || max > array.length) {
+            throw new IllegalArgumentException("max must be greater or equal than 0 and less or equal than " + array.length + ", " + max + " is not valid");
+        }
+        lock.lock();
+        try {
+            int count = Math.min(max, size);
+            int firstPart = Math.min(count, items.length - head);
+            System.arraycopy(items, head, array, 0, firstPart);
+            System.arraycopy(items, 0, array, firstPart, count - firstPart);
+            Arrays.fill(items, head, head + firstPart, null);
+            Arrays.fill(items, 0, count - firstPart, null);
+            head = position(count);
+            size -= count;
+            if (count > 0) {
+                notFull.signalAll();
+            }
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // return an iterator over a snapshot of the items in order from front to back
+    public Iterator<Item> iterator() {
+        return new BoundedDequeIterator();
+    }
+
+    // unit testing (optional): a producer fills the deque faster than a consumer draining it in batches
+    public static void main(String[] args) throws InterruptedException {
+        final BoundedDeque<Integer> deque = new BoundedDeque<Integer>(4);
+        final int items = 1000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < items; i++) {
+                    deque.putLast(i);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Integer[] batch = new Integer[3];
+        long sum = 0;
+        int received = 0;
+        int batches = 0;
+        while (received < items) {
+            int count = deque.drainTo(batch, batch.length);
+            if (count == 0) {
+                batch[0] = deque.takeFirst();
+                count = 1;
+            }
+            for (int i = 0; i < count; i++) {
+                sum += batch[i];
+            }
+            received += count;
+            batches++;
+        }
+        producer.join();
+        StdOut.println("Received " + received + " items in " + batches + " batches, sum = " + sum);
+
+        deque.addFirst(2);
+        deque.addFirst(1);
+        deque.addLast(3);
+        deque.addLast(4);
+        StdOut.println("Offer when full: " + deque.offerLast(5));
+        for (int item : deque) {
+            StdOut.println("Item: " + item);
+        }
+        StdOut.println("Removed from back: " + deque.removeLast());
+        StdOut.println("Removed from front: " + deque.removeFirst());
+    }
+}
@@ -1,32 +1,37 @@
 import edu.princeton.cs.algs4.StdOut;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
 
 public class Deque<Item> implements Iterable<Item> {
-    private Node first = null;
-    private Node last = null;
+    private static final int MIN_CAPACITY = 8;
+    // circular array whose length is a power of two, so positions wrap with a mask instead of a modulo
+    private Item[] items;
+    // position of the front item in items
+    private int head = 0;
     private int size = 0;
-
-    private class Node {
-        private Item item;
-        private Node next;
-        private Node previous;
-    }
+    // number of adds and removes, so iterators can detect that the deque changed under them
+    private int modCount = 0;
 
     private class DequeIterator implements Iterator<Item> {
-        private Node current = first;
+        private final int expectedModCount = modCount;
+        private int i = 0;
 
         public boolean hasNext() {
-            return current != null;
+            return i < size;
         }
 
         public Item next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Deque was modified during iteration");
+            }
             if (!hasNext()) {
                 throw new NoSuchElementException("There are no more items");
             }
-            Item item = current.item;
-            current = current.next;
-            return item;
+            return items[(head + i++) & (items.length - 1)];
         }
 
         public void remove() {
@@ -34,9 +39,86 @@ public class Deque<Item> implements Iterable<Item> {
         }
     }
 
+    // covers the items at offsets [index, fence) from the front, and splits by halving that range
+    private class DequeSpliterator implements Spliterator<Item> {
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+
+        // expectedModCount is the count when the first spliterator was created, handed down on every split
+        DequeSpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException("action cannot be null");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Deque was modified during iteration");
+            }
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(items[(head + index++) & (items.length - 1)]);
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException("action cannot be null");
+            }
+            Item[] array = items;
+            int mask = array.length - 1;
+            for (; index < fence; index++) {
+                action.accept(array[(head + index) & mask]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Deque was modified during iteration");
+            }
+        }
+
+        public Spliterator<Item> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            DequeSpliterator prefix = new DequeSpliterator(index, middle, expectedModCount);
+            index = middle;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
     // construct an empty deque
     public Deque() {
-        // Do nothing
+        items = (Item[]) new Object[MIN_CAPACITY];
+    }
+
+    // moves the items to a new array of the given power of two capacity, front item first
+    private void resize(int capacity) {
+        Item[] copy = (Item[]) new Object[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    // halves the array when it is a quarter full, so a deque that stays around one size never reallocates
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) {
+            resize(items.length / 2);
+        }
     }
 
     // is the deque empty?
@@ -54,18 +136,13 @@ public class Deque<Item> implements Iterable<Item> {
         if (item == null) {
             throw new IllegalArgumentException("Item cannot be null");
         }
-        Node oldFirst = first;
-        first = new Node();
-        first.item = item;
-        first.next = oldFirst;
-        first.previous = null;
-        if (oldFirst != null) {
-            oldFirst.previous = first;
-        }
-        else {
-            last = first;
+        if (size == items.length) {
+            resize(2 * items.length);
         }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
         size++;
+        modCount++;
     }
 
     // add the item to the back
@@ -73,18 +150,12 @@ public class Deque<Item> implements Iterable<Item> {
         if (item == null) {
             throw new IllegalArgumentException("Item cannot be null");
         }
-        Node newLast = new Node();
-        newLast.item = item;
-        newLast.next = null;
-        newLast.previous = last;
-        if (last != null) {
-            last.next = newLast;
-        }
-        else {
-            first = newLast;
+        if (size == items.length) {
+            resize(2 * items.length);
         }
-        last = newLast;
+        items[(head + size) & (items.length - 1)] = item;
         size++;
+        modCount++;
     }
 
     // remove and return the item from the front
@@ -92,17 +163,12 @@ public class Deque<Item> implements Iterable<Item> {
         if (isEmpty()) {
             throw new NoSuchElementException("Deque is empty");
         }
-        Node oldFirst = first;
-        Item item = oldFirst.item;
-        first = oldFirst.next;
-        if (first != null) {
-            first.previous = null;
-        }
-        else {
-            last = null;
-        }
-        oldFirst.next = null;
+        Item item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
         size--;
+        modCount++;
+        shrinkIfSparse();
         return item;
     }
 
@@ -111,25 +177,27 @@ public class Deque<Item> implements Iterable<Item> {
         if (isEmpty()) {
             throw new NoSuchElementException("Deque is empty");
         }
-        Node newLast = last.previous;
-        Item item = last.item;
-        last.previous = null;
-        last = newLast;
-        if (last != null) {
-            last.next = null;
-        }
-        else {
-            first = null;
-        }
+        int lastIndex = (head + size - 1) & (items.length - 1);
+        Item item = items[lastIndex];
+        items[lastIndex] = null;
         size--;
+        modCount++;
+        shrinkIfSparse();
         return item;
     }
 
-    // return an iterator over items in order from front to back
+    // return an iterator over items in order from front to back; it throws ConcurrentModificationException
+    // if the deque is modified after the iterator was created
     public Iterator<Item> iterator() {
         return new DequeIterator();
     }
 
+    // return a sized spliterator over items in order from front to back, which splits evenly for parallel streams;
+    // it throws ConcurrentModificationException if the deque is modified after the spliterator was created
+    public Spliterator<Item> spliterator() {
+        return new DequeSpliterator(0, size, modCount);
+    }
+
     // unit testing (required)
     public static void main(String[] args) {
         Deque<Integer> deque = new Deque<Integer>();
@@ -163,6 +231,8 @@ public class Deque<Item> implements Iterable<Item> {
             StdOut.println("Item: " + item);
         }
 
+        StdOut.println("Sum: " + StreamSupport.stream(deque.spliterator(), true).mapToInt(item -> item).sum());
+
         while (!deque.isEmpty()) {
             StdOut.println("Removed from back: " + deque.removeLast());
         }
@@ -0,0 +1,140 @@
+import edu.princeton.cs.algs4.StdOut;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class IntDeque implements Iterable<Integer> {
+    private static final int MIN_CAPACITY = 8;
+    // circular array whose length is a power of two, so positions wrap with a mask instead of a modulo
+    private int[] items;
+    // position of the front item in items
+    private int head = 0;
+    private int size = 0;
+
+    private class IntDequeIterator implements PrimitiveIterator.OfInt {
+        private int i = 0;
+
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There are no more items");
+            }
+            return items[(head + i++) & (items.length - 1)];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Operation not supported");
+        }
+    }
+
+    // construct an empty deque
+    public IntDeque() {
+        items = new int[MIN_CAPACITY];
+    }
+
+    // moves the items to a new array of the given power of two capacity, front item first
+    private void resize(int capacity) {
+        int[] copy = new int[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    // halves the array when it is a quarter full, so a deque that stays around one size never reallocates
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(int item) {
+        if (size == items.length) {
+            resize(2 * items.length);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(int item) {
+        if (size == items.length) {
+            resize(2 * items.length);
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public int removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // remove and return the item from the back
+    public int removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        int item = items[(head + size - 1) & (items.length - 1)];
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // return an iterator over items in order from front to back; use nextInt to read them without boxing
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntDequeIterator();
+    }
+
+    // unit testing (optional)
+    public static void main(String[] args) {
+        IntDeque deque = new IntDeque();
+
+        deque.addFirst(4);
+        deque.addFirst(3);
+        deque.addFirst(2);
+        deque.addFirst(1);
+
+        StdOut.println("Removed from back: " + deque.removeLast());
+        StdOut.println("Deque size: " + deque.size());
+
+        deque.addLast(5);
+        deque.addLast(6);
+        deque.addLast(7);
+        deque.addLast(8);
+
+        PrimitiveIterator.OfInt dequeIterator = deque.iterator();
+        while (dequeIterator.hasNext()) {
+            StdOut.println("Item: " + dequeIterator.nextInt());
+        }
+
+        StdOut.println("Removed from front: " + deque.removeFirst());
+        StdOut.println("Deque size: " + deque.size());
+
+        while (!deque.isEmpty()) {
+            StdOut.println("Removed from back: " + deque.removeLast());
+        }
+    }
+}
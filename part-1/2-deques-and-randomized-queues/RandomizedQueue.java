@@ -2,31 +2,43 @@ import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
 
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
     private Item[] items;
     private int n = 0;
 
+    // number of enqueues and dequeues, so iterators can detect that the queue changed under them
+    private int modCount = 0;
+
+    // iterates in the order of a Fisher-Yates shuffle of the positions [0, n) that is generated one swap per next;
+    // only swapped positions are stored, in a hash map, so creating the iterator and reading k items costs O(k)
     private class RandomArrayIterator implements Iterator<Item> {
-        private final Item[] iteratorItems;
+        private final int expectedModCount = modCount;
+        private final SwapMap swaps = new SwapMap();
         private int i = n;
 
-        public RandomArrayIterator() {
-            iteratorItems = Arrays.copyOf(items, items.length);
-            StdRandom.shuffle(iteratorItems, 0, n);
-        }
-
         public boolean hasNext() {
             return i > 0;
         }
 
         public Item next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Randomized queue was modified during iteration");
+            }
             if (i <= 0) {
                 throw new NoSuchElementException("There are no more items");
             }
-            return iteratorItems[--i];
+            int randomPosition = StdRandom.uniform(i);
+            int index = swaps.get(randomPosition);
+            // the position just taken now holds the last remaining position's index
+            swaps.put(randomPosition, swaps.get(--i));
+            return items[index];
         }
 
         public void remove() {
@@ -34,6 +46,56 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    // position -> index map of a lazily shuffled permutation, where positions not in the map hold their own index;
+    // open addressing over parallel int arrays, keys are stored plus one so 0 marks an empty slot
+    private static class SwapMap {
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int size = 0;
+
+        private int slot(int[] table, int key) {
+            int mask = table.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != 0 && table[slot] != key + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        int get(int position) {
+            int slot = slot(keys, position);
+            return keys[slot] == 0 ? position : values[slot];
+        }
+
+        void put(int position, int index) {
+            int slot = slot(keys, position);
+            if (keys[slot] == 0) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    slot = slot(keys, position);
+                }
+                keys[slot] = position + 1;
+                size++;
+            }
+            values[slot] = index;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldValues.length];
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != 0) {
+                    int slot = slot(keys, oldKeys[j] - 1);
+                    keys[slot] = oldKeys[j];
+                    values[slot] = oldValues[j];
+                }
+            }
+        }
+    }
+
     // construct an empty randomized queue
     public RandomizedQueue() {
         items = (Item[]) new Object[1];
@@ -66,6 +128,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             resize(2 * items.length);
         }
         items[n++] = item;
+        modCount++;
     }
 
     // remove and return a random item
@@ -77,6 +140,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         Item item = items[randomIndex];
         items[randomIndex] = items[--n];
         items[n] = null;
+        modCount++;
         if (n > 0 && n == items.length/4) {
             resize(items.length/2);
         }
@@ -92,11 +156,20 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return items[randomIndex];
     }
 
-    // return an independent iterator over items in random order
+    // return an iterator over items in random order, independent of other iterators; it throws
+    // ConcurrentModificationException if the queue is modified after the iterator was created
     public Iterator<Item> iterator() {
         return new RandomArrayIterator();
     }
 
+    // return an independent sized spliterator over items in random order, which splits evenly for parallel streams;
+    // it works on a shuffled copy of the items, so later changes to the queue never affect it
+    public Spliterator<Item> spliterator() {
+        Item[] spliteratorItems = Arrays.copyOf(items, n);
+        StdRandom.shuffle(spliteratorItems, 0, n);
+        return Spliterators.spliterator(spliteratorItems, Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
     // unit testing (required)
     public static void main(String[] args) {
         RandomizedQueue<Integer> randomizedQueue = new RandomizedQueue<Integer>();
@@ -120,6 +193,8 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             StdOut.println("It 2 - Item: " + item);
         }
 
+        StdOut.println("Sum: " + StreamSupport.stream(randomizedQueue.spliterator(), true).mapToInt(item -> item).sum());
+
         for (int i = 0; i < 10; i++) {
             StdOut.println("Sample item: " + randomizedQueue.sample());
         }
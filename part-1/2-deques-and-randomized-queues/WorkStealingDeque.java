@@ -0,0 +1,281 @@
+import edu.princeton.cs.algs4.StdOut;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Chase-Lev work-stealing deque: one owner thread adds and removes at the back without locks or CAS (except when
+// racing for the last item), any number of thief threads remove from the front with a CAS on the front index
+public class WorkStealingDeque<Item> implements Iterable<Item> {
+    private static final int MIN_CAPACITY = 32;
+    // circular array whose length is a power of two; replaced, never written again, when the owner grows it,
+    // so a thief reading an old array still finds the items it can take
+    private volatile AtomicReferenceArray<Item> items;
+    // index of the front item, only ever incremented, by a CAS
+    private final AtomicLong top = new AtomicLong();
+    // index one past the back item, only written by the owner
+    private volatile long bottom = 0;
+    // owner only: slots of stolen items below this index have been cleared
+    private long cleared = 0;
+
+    private class WorkStealingDequeIterator implements Iterator<Item> {
+        // top and bottom are read before the array: an array read later holds every index in [i, end) that is still
+        // in the deque, and capping end at its length keeps positions from wrapping onto the same slot twice
+        private long i = top.get();
+        private final long bottomAtCreation = bottom;
+        private final AtomicReferenceArray<Item> iteratorItems = items;
+        private final long end = Math.min(bottomAtCreation, i + iteratorItems.length());
+        private Item nextItem = advance();
+
+        // returns the next item still in the array, skipping slots the owner has cleared
+        private Item advance() {
+            while (i < end) {
+                Item item = iteratorItems.get(index(iteratorItems, i++));
+                if (item != null) {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        public boolean hasNext() {
+            return nextItem != null;
+        }
+
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There are no more items");
+            }
+            Item item = nextItem;
+            nextItem = advance();
+            return item;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Operation not supported");
+        }
+    }
+
+    // construct an empty deque
+    public WorkStealingDeque() {
+        items = new AtomicReferenceArray<Item>(MIN_CAPACITY);
+    }
+
+    private static int index(AtomicReferenceArray<?> array, long i) {
+        return (int) i & (array.length() - 1);
+    }
+
+    // is the deque empty? only a snapshot while other threads use it
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque; while other threads use it, this is the size at some point during
+    // the call, give or take the items being removed concurrently
+    public int size() {
+        long b = bottom;
+        long t = top.get();
+        return (int) Math.max(0, b - t);
+    }
+
+    // add the item to the back; owner thread only
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> array = items;
+        clearStolen(array, t, b);
+        if (b - t >= array.length()) {
+            array = grow(array, t, b);
+        }
+        array.set(index(array, b), item);
+        // publishes the item to thieves
+        bottom = b + 1;
+    }
+
+    // clears the slots of items stolen since the last call, so they are not kept reachable until the slot is reused;
+    // thieves cannot clear the slot they took themselves: by then the owner may have put a new item there, possibly
+    // the very same reference, so neither a plain write nor a compare-and-set on the slot is safe. Owner thread only;
+    // a slot of index i < t is only reused by index i + length, which is not added yet while i + length >= b
+    private void clearStolen(AtomicReferenceArray<Item> array, long t, long b) {
+        for (long i = Math.max(cleared, b - array.length()); i < t; i++) {
+            array.set(index(array, i), null);
+        }
+        cleared = Math.max(cleared, t);
+    }
+
+    // copies the items in [t, b) to an array of twice the capacity and publishes it
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> array, long t, long b) {
+        AtomicReferenceArray<Item> copy = new AtomicReferenceArray<Item>(2 * array.length());
+        for (long i = t; i < b; i++) {
+            copy.set(index(copy, i), array.get(index(array, i)));
+        }
+        items = copy;
+        return copy;
+    }
+
+    // remove and return the item from the back, or null if the deque is empty; owner thread only
+    public Item pollLast() {
+        AtomicReferenceArray<Item> array = items;
+        clearStolen(array, top.get(), bottom);
+        long b = bottom - 1;
+        // reserve the back slot before reading top, so a thief either sees the reservation or the owner sees its steal
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+        int slot = index(array, b);
+        Item item = array.get(slot);
+        if (t < b) {
+            // thieves only take the front item, which is not this one
+            array.set(slot, null);
+            return item;
+        }
+        // last item: race the thieves for it
+        boolean won = top.compareAndSet(t, t + 1);
+        if (won) {
+            array.set(slot, null);
+        }
+        bottom = b + 1;
+        return won ? item : null;
+    }
+
+    // remove and return the item from the back; owner thread only
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        return item;
+    }
+
+    // remove and return the item from the front, or null if the deque is empty; any thread;
+    // a lost race with another thread is retried, so null means the deque was empty
+    public Item pollFirst() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) {
+                return null;
+            }
+            AtomicReferenceArray<Item> array = items;
+            Item item = array.get(index(array, t));
+            // the slot is left for the owner to clear, see clearStolen; a null item means it already has, after top moved
+            if (item != null && top.compareAndSet(t, t + 1)) {
+                return item;
+            }
+        }
+    }
+
+    // remove and return the item from the front; any thread
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        return item;
+    }
+
+    // return a weakly consistent iterator over items in order from front to back: it never throws because of
+    // concurrent use, and may or may not return items added or removed after it was created
+    public Iterator<Item> iterator() {
+        return new WorkStealingDequeIterator();
+    }
+
+    // the owner adds items and takes back every other one while thieves steal from the front;
+    // returns the nanoseconds taken, checking that every item was taken exactly once
+    private static long ownerAndThieves(final int items, int thieves, final boolean workStealing) {
+        final WorkStealingDeque<Integer> deque = new WorkStealingDeque<Integer>();
+        final ConcurrentLinkedDeque<Integer> reference = new ConcurrentLinkedDeque<Integer>();
+        final AtomicLong takenSum = new AtomicLong();
+        final AtomicLong takenCount = new AtomicLong();
+        final AtomicBoolean ownerDone = new AtomicBoolean();
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                long sum = 0;
+                long count = 0;
+                while (true) {
+                    // read the flag first: once the owner is done, an empty deque stays empty
+                    boolean done = ownerDone.get();
+                    Integer item = workStealing ? deque.pollFirst() : reference.pollFirst();
+                    if (item != null) {
+                        sum += item;
+                        count++;
+                    }
+                    else if (done) {
+                        break;
+                    }
+                    else {
+                        Thread.yield();
+                    }
+                }
+                takenSum.addAndGet(sum);
+                takenCount.addAndGet(count);
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long sum = 0;
+        long count = 0;
+        for (int i = 0; i < items; i++) {
+            if (workStealing) {
+                deque.addLast(i);
+            }
+            else {
+                reference.addLast(i);
+            }
+            if ((i & 1) == 1) {
+                Integer item = workStealing ? deque.pollLast() : reference.pollLast();
+                if (item != null) {
+                    sum += item;
+                    count++;
+                }
+            }
+        }
+        takenSum.addAndGet(sum);
+        takenCount.addAndGet(count);
+        ownerDone.set(true);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for thieves", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (takenCount.get() != items || takenSum.get() != (long) items * (items - 1) / 2) {
+            throw new IllegalStateException("items were lost or taken twice");
+        }
+        return elapsed;
+    }
+
+    // unit testing (optional): compares with ConcurrentLinkedDeque as an owner and thieves workload
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int thieves = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<Integer>();
+        deque.addLast(1);
+        deque.addLast(2);
+        deque.addLast(3);
+        StdOut.println("Stolen from front: " + deque.removeFirst());
+        StdOut.println("Removed from back: " + deque.removeLast());
+        StdOut.println("Deque size: " + deque.size());
+        for (int round = 0; round < 3; round++) {
+            long workStealing = ownerAndThieves(items, thieves, true);
+            long reference = ownerAndThieves(items, thieves, false);
+            StdOut.printf("%d thieves: WorkStealingDeque %.1f ns/item, ConcurrentLinkedDeque %.1f ns/item\n",
+                thieves, (1.0 * workStealing) / items, (1.0 * reference) / items);
+        }
+    }
+}